@@ -1,25 +1,67 @@
 package io.patronian.HyStreamerAlerts;
 
+import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.Universe;
 import io.patronian.HyStreamerAlerts.commands.HyStreamerAlertsCommands;
+import io.patronian.HyStreamerAlerts.dispatch.AlertSpill;
+import io.patronian.HyStreamerAlerts.dispatch.ChatGovernor;
+import io.patronian.HyStreamerAlerts.dispatch.CoalescingAlertHandler;
+import io.patronian.HyStreamerAlerts.dispatch.DedupingAlertHandler;
+import io.patronian.HyStreamerAlerts.dispatch.DispatchingAlertHandler;
+import io.patronian.HyStreamerAlerts.dispatch.DispatchingChatHandler;
+import io.patronian.HyStreamerAlerts.dispatch.InboxingAlertHandler;
+import io.patronian.HyStreamerAlerts.dispatch.RecordingAlertHandler;
+import io.patronian.HyStreamerAlerts.dispatch.RenderDispatcher;
+import io.patronian.HyStreamerAlerts.dispatch.RenderJob;
+import io.patronian.HyStreamerAlerts.dispatch.WatchIndex;
 import io.patronian.HyStreamerAlerts.manager.AlertDataManager;
+import io.patronian.HyStreamerAlerts.manager.ConfigManager;
+import io.patronian.HyStreamerAlerts.manager.JournaledSettingsStore;
+import io.patronian.HyStreamerAlerts.manager.MappedSettingsStore;
+import io.patronian.HyStreamerAlerts.manager.OfflineInbox;
+import io.patronian.HyStreamerAlerts.manager.SettingsStore;
+import io.patronian.HyStreamerAlerts.manager.ShardedSettingsStore;
 import io.patronian.HyStreamerAlerts.impl.BotrixAlertProvider;
 import io.patronian.HyStreamerAlerts.impl.BotrixChatProvider;
+import io.patronian.HyStreamerAlerts.impl.ChatPrefixCache;
 import io.patronian.HyStreamerAlerts.impl.HytaleAlertHandler;
 import io.patronian.HyStreamerAlerts.impl.HytaleChatHandler;
 import io.patronian.HyStreamerAlerts.impl.KickAlertProvider;
+import io.patronian.HyStreamerAlerts.impl.TitleSequencer;
+import io.patronian.HyStreamerAlerts.history.AlertHistory;
+import io.patronian.HyStreamerAlerts.template.Templates;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
 
 public class HyStreamerAlertsPlugin extends JavaPlugin {
     
     private static HyStreamerAlertsPlugin instance;
     private StreamerServiceRegistry serviceRegistry;
     private AlertDataManager alertDataManager;
+    private ConfigManager configManager;
+    private RenderDispatcher renderDispatcher;
+    private TitleSequencer titleSequencer;
+    private CoalescingAlertHandler alertCoalescer;
+    private DedupingAlertHandler alertDeduper;
+    private ChatGovernor chatGovernor;
+    private ChatPrefixCache chatPrefixCache;
+    private HytaleChatHandler hytaleChatHandler;
+    private WatchIndex watchIndex;
+    private AlertHistory alertHistory;
+    private OnlinePlayers onlinePlayers;
+    private OfflineInbox offlineInbox;
+    private AlertSpill alertSpill;
     private boolean debugMode = false;
     
     public HyStreamerAlertsPlugin(@Nonnull JavaPluginInit init) {
@@ -31,15 +73,31 @@ public class HyStreamerAlertsPlugin extends JavaPlugin {
     public void setup() {
         initServices();
         registerCommands();
+        registerEvents();
     }
     
     @Override
     public void shutdown() {
+        // Stop taking alerts in, then deliver the ones already accepted; whatever misses the
+        // deadline is kept for the next start
         if (serviceRegistry != null) {
             serviceRegistry.shutdownAll();
         }
+        if (alertCoalescer != null) {
+            alertCoalescer.shutdown();
+        }
+        if (renderDispatcher != null) {
+            List<RenderJob> undelivered = renderDispatcher.shutdown(configManager.getLong("shutdown.drainMillis", 3000));
+            alertSpill.write(undelivered);
+        }
+        if (alertHistory != null) {
+            alertHistory.shutdown();
+        }
+        if (offlineInbox != null) {
+            offlineInbox.shutdown();
+        }
         if (alertDataManager != null) {
-            alertDataManager.save();
+            alertDataManager.shutdown();
         }
         System.out.println("[HyStreamerAlerts] Plugin shutdown complete");
     }
@@ -56,6 +114,54 @@ public class HyStreamerAlertsPlugin extends JavaPlugin {
         return alertDataManager;
     }
 
+    public ConfigManager getConfigManager() {
+        return configManager;
+    }
+
+    public RenderDispatcher getRenderDispatcher() {
+        return renderDispatcher;
+    }
+
+    public TitleSequencer getTitleSequencer() {
+        return titleSequencer;
+    }
+
+    public CoalescingAlertHandler getAlertCoalescer() {
+        return alertCoalescer;
+    }
+
+    public DedupingAlertHandler getAlertDeduper() {
+        return alertDeduper;
+    }
+
+    public ChatGovernor getChatGovernor() {
+        return chatGovernor;
+    }
+
+    public ChatPrefixCache getChatPrefixCache() {
+        return chatPrefixCache;
+    }
+
+    public HytaleChatHandler getHytaleChatHandler() {
+        return hytaleChatHandler;
+    }
+
+    public WatchIndex getWatchIndex() {
+        return watchIndex;
+    }
+
+    public AlertHistory getAlertHistory() {
+        return alertHistory;
+    }
+
+    public OnlinePlayers getOnlinePlayers() {
+        return onlinePlayers;
+    }
+
+    public OfflineInbox getOfflineInbox() {
+        return offlineInbox;
+    }
+
     public boolean isDebugMode() {
         return debugMode;
     }
@@ -68,29 +174,151 @@ public class HyStreamerAlertsPlugin extends JavaPlugin {
         this.getCommandRegistry().registerCommand(new HyStreamerAlertsCommands());
     }
 
+    private void registerEvents() {
+        this.getEventRegistry().registerGlobal(PlayerConnectEvent.class, event -> {
+            PlayerRef player = event.getPlayerRef();
+            onlinePlayers.add(player);
+            UUID playerId = player.getUuid();
+            // Alerts that arrived while they were away, as one line
+            offlineInbox.deliverLater(playerId, () -> onlinePlayers.get(playerId), renderDispatcher::submitNotice);
+        });
+        this.getEventRegistry().registerGlobal(PlayerDisconnectEvent.class,
+                event -> onlinePlayers.remove(event.getPlayerRef()));
+    }
+
+    /**
+     * @return The world rendering runs on, or null before the universe has loaded one
+     */
+    private static Executor defaultWorld() {
+        Universe universe = Universe.get();
+        return universe == null ? null : universe.getDefaultWorld();
+    }
+
     private void initServices(){
-        // Initialize and load alert data
         Path dataFolder = Paths.get("plugins", "HyStreamerAlerts");
-        alertDataManager = new AlertDataManager(dataFolder);
-        alertDataManager.load();
+
+        // Load server owner settings
+        configManager = new ConfigManager(dataFolder);
+        configManager.load();
+
+        // Initialize and load alert data
+        SettingsStore settingsStore;
+        String backend = configManager.getString("data.backend", "json");
+        switch (backend) {
+            case "mapped":
+                settingsStore = new MappedSettingsStore(dataFolder, configManager.getInt("data.cacheSize", 4096));
+                break;
+            case "sharded":
+                settingsStore = new ShardedSettingsStore(dataFolder,
+                        configManager.getInt("data.maxLoadedShards", 64),
+                        configManager.getLong("data.shardIdleMillis", 600000));
+                break;
+            default:
+                if (!backend.equals("json")) {
+                    System.out.println("[HyStreamerAlerts] Unknown data.backend '" + backend + "', using json");
+                }
+                settingsStore = new JournaledSettingsStore(dataFolder,
+                        configManager.getLong("data.compactAfterRecords", 1000));
+                break;
+        }
+        alertDataManager = new AlertDataManager(dataFolder, settingsStore,
+                configManager.getLong("data.saveDelayMillis", 2000));
+        // Read in the background; commands and providers are registered meanwhile
+        alertDataManager.loadAsync(configManager.getLong("data.loadWaitMillis", 2000));
         
+        // Initialize render pipeline: providers queue events, the world thread renders them
+        Templates templates = Templates.load(configManager);
+        titleSequencer = new TitleSequencer(
+                configManager.getLong("titles.minDisplayMillis", 3000),
+                configManager.getLong("titles.maxWaitMillis", 20000),
+                configManager.getInt("titles.maxQueuedPerPlayer", 25),
+                templates);
+        chatPrefixCache = new ChatPrefixCache(configManager.getInt("chat.prefixCacheSize", 512));
+        hytaleChatHandler = new HytaleChatHandler(templates, chatPrefixCache,
+                configManager.getInt("chat.batchMaxLines", 10));
+        renderDispatcher = new RenderDispatcher(new HytaleAlertHandler(titleSequencer, templates), hytaleChatHandler,
+                HyStreamerAlertsPlugin::defaultWorld,
+                configManager.getLong("render.tickMillis", 33),
+                configManager.getLong("render.tickBudgetMicros", 2000),
+                configManager.getInt("render.fairQuantum", 4));
+        renderDispatcher.addTickListener(titleSequencer::tick);
+        // Titles still queued at shutdown are saved along with the alerts not yet rendered
+        renderDispatcher.setPendingSource(() -> {
+            List<RenderJob> jobs = new ArrayList<>();
+            for (TitleSequencer.Pending title : titleSequencer.drainPending()) {
+                jobs.add(RenderJob.event(title.player(), title.streamerId(), title.event()));
+            }
+            return jobs;
+        });
+        renderDispatcher.addTickListener(hytaleChatHandler::flush);
+        watchIndex = new WatchIndex();
+        renderDispatcher.setWatchIndex(watchIndex);
+        renderDispatcher.start();
+
+        // Alerts from every provider are deduplicated and recorded, then merged into bursts before being queued for rendering;
+        // alerts for streamers who are offline go to their inbox instead
+        onlinePlayers = new OnlinePlayers();
+        offlineInbox = new OfflineInbox(dataFolder,
+                configManager.getInt("inbox.maxPlayers", 10000),
+                configManager.getLong("inbox.maxAgeDays", 14) * 86_400_000L,
+                configManager.getLong("data.saveDelayMillis", 2000),
+                configManager.getLong("inbox.digestDelayMillis", 5000));
+        offlineInbox.load();
+        // Alerts left undelivered by the last shutdown
+        alertSpill = new AlertSpill(dataFolder);
+        alertSpill.replay(renderDispatcher, onlinePlayers::get, offlineInbox::add);
+        alertCoalescer = new CoalescingAlertHandler(new DispatchingAlertHandler(renderDispatcher),
+                configManager.getLong("coalesce.windowMillis", 5000));
+        alertHistory = new AlertHistory(dataFolder,
+                configManager.getInt("history.ringSize", 50),
+                configManager.getInt("history.queueCapacity", 10000),
+                configManager.getLong("history.segmentBytes", 4L * 1024 * 1024),
+                configManager.getLong("history.segmentMinutes", 60) * 60_000L,
+                configManager.getLong("history.retentionDays", 7) * 86_400_000L,
+                configManager.getLong("history.maxMegabytes", 256) * 1024 * 1024);
+        alertHistory.start();
+        alertDeduper = new DedupingAlertHandler(new RecordingAlertHandler(alertHistory,
+                new InboxingAlertHandler(offlineInbox, alertCoalescer)),
+                configManager.getLong("dedupe.windowMillis", 10000),
+                configManager.getInt("dedupe.bucketCapacity", 4096));
+
         // Initialize Service Registry
         serviceRegistry = new StreamerServiceRegistry();
 
         // Initialize Botrix Provider and Handler
         BotrixAlertProvider botrixAlerts = new BotrixAlertProvider();
-        botrixAlerts.setAlertHandler(new HytaleAlertHandler());
+        botrixAlerts.setAlertHandler(alertDeduper.forProvider("botrix"));
         serviceRegistry.registerAlertProvider("botrix", botrixAlerts);
         System.out.println("[HyStreamerAlerts] Botrix Alert Provider initialized");
 
         BotrixChatProvider botrixChat = new BotrixChatProvider();
-        botrixChat.setChatHandler(new HytaleChatHandler());
+        chatGovernor = new ChatGovernor(renderDispatcher,
+                configManager.getDouble("chat.maxPerSecond", 6),
+                configManager.getInt("chat.pressureDepth", 200));
+        renderDispatcher.addTickListener(chatGovernor::flushSkipped);
+        botrixChat.setChatHandler(new DispatchingChatHandler(renderDispatcher, chatGovernor));
         serviceRegistry.registerChatProvider("botrix", botrixChat);
         System.out.println("[HyStreamerAlerts] Botrix Chat Provider initialized");
 
         // Initialize Kick Provider (Server)
         KickAlertProvider kickAlerts = new KickAlertProvider();
-        kickAlerts.setAlertHandler(new HytaleAlertHandler());
+        kickAlerts.setAlertHandler(alertDeduper.forProvider("kick"));
+        kickAlerts.setPort(configManager.getInt("kick.port", 8080));
+        kickAlerts.setTcpEnabled(configManager.getBoolean("kick.tcp.enabled", true));
+        String unixSocket = configManager.getString("kick.unixSocket", null);
+        if (unixSocket != null) {
+            kickAlerts.setUnixSocketPath(Paths.get(unixSocket));
+        }
+        kickAlerts.setSourceRateLimit(
+                configManager.getDouble("kick.rateLimit.perSource.perSecond", 20),
+                configManager.getInt("kick.rateLimit.perSource.burst", 40));
+        kickAlerts.setRequestLimits(
+                configManager.getLong("kick.maxBodyBytes", 1024 * 1024),
+                configManager.getInt("kick.batch.maxItems", 1000),
+                configManager.getInt("kick.batch.maxItemChars", 16 * 1024));
+        kickAlerts.setStreamerRateLimit(
+                configManager.getDouble("kick.rateLimit.perStreamer.perSecond", 10),
+                configManager.getInt("kick.rateLimit.perStreamer.burst", 30));
         try {
             kickAlerts.startServer();
             serviceRegistry.registerAlertProvider("kick", kickAlerts);
@@ -0,0 +1,47 @@
+package io.patronian.HyStreamerAlerts;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Players currently on the server, kept up to date from connect and disconnect events.
+ *
+ * Providers look streamers up here for every alert instead of holding on to the PlayerRef
+ * they were connected with, so alerts reach a streamer again after they rejoin and are
+ * recognised as undeliverable while they are away.
+ */
+public class OnlinePlayers {
+
+    private final Map<UUID, PlayerRef> players = new ConcurrentHashMap<>();
+
+    public void add(PlayerRef player) {
+        players.put(player.getUuid(), player);
+    }
+
+    /**
+     * Removes the player, unless they have already reconnected with a new PlayerRef.
+     */
+    public void remove(PlayerRef player) {
+        players.remove(player.getUuid(), player);
+    }
+
+    /**
+     * @return The player's current PlayerRef, or null if they are not online
+     */
+    public PlayerRef get(UUID playerId) {
+        PlayerRef player = players.get(playerId);
+        if (player != null && !player.isValid()) {
+            // Missed the disconnect event
+            players.remove(playerId, player);
+            return null;
+        }
+        return player;
+    }
+
+    public int size() {
+        return players.size();
+    }
+}
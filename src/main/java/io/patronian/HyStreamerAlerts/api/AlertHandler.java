@@ -2,6 +2,8 @@ package io.patronian.HyStreamerAlerts.api;
 
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 
+import java.util.UUID;
+
 /**
  * Handles alert events triggered by an AlertProvider.
  */
@@ -11,4 +13,44 @@ public interface AlertHandler {
     void onGiftSub(PlayerRef player, String gifterName, int amount, String platform);
     void onDonation(PlayerRef player, String donorName, String amount, String platform);
     void onRaid(PlayerRef player, String raiderName, int viewers, String platform);
+
+    /**
+     * Handles an already decoded event by routing it to the matching callback.
+     */
+    default void onEvent(PlayerRef player, StreamEvent event) {
+        switch (event.getType()) {
+            case FOLLOW:
+                onFollow(player, event.getUser(), event.getPlatform());
+                break;
+            case SUBSCRIBE:
+                onSubscribe(player, event.getUser(), event.getCount(), event.getPlatform());
+                break;
+            case GIFT_SUB:
+                onGiftSub(player, event.getUser(), event.getCount(), event.getPlatform());
+                break;
+            case DONATION:
+                onDonation(player, event.getUser(), event.getText(), event.getPlatform());
+                break;
+            case RAID:
+                onRaid(player, event.getUser(), event.getCount(), event.getPlatform());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Handles an event from a streamer's feed for a player who is that streamer or one of
+     * their watchers. Handlers that keep events past this call (e.g. queued titles) override
+     * it to know where an event came from.
+     */
+    default void onFeedEvent(PlayerRef player, UUID streamerId, StreamEvent event) {
+        onEvent(player, event);
+    }
+
+    /**
+     * Handles an event for a streamer who is not online to see it. Dropped unless overridden.
+     */
+    default void onUndeliverable(UUID playerId, StreamEvent event) {
+    }
 }
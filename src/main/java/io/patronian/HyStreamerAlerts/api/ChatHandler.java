@@ -7,4 +7,11 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
  */
 public interface ChatHandler {
     void onMessage(PlayerRef player, String sender, String message, String platform);
+
+    /**
+     * Handles an already decoded chat event.
+     */
+    default void onChat(PlayerRef player, StreamEvent event) {
+        onMessage(player, event.getUser(), event.getText(), event.getPlatform());
+    }
 }
@@ -0,0 +1,185 @@
+package io.patronian.HyStreamerAlerts.api;
+
+import java.util.List;
+
+/**
+ * Immutable, decoded stream event. Providers decode a payload once into an event, which can
+ * then be queued, rendered and fanned out without touching the payload again.
+ */
+public final class StreamEvent {
+
+    // Chat badge flags
+    public static final int BADGE_BROADCASTER = 1;
+    public static final int BADGE_MODERATOR = 1 << 1;
+    public static final int BADGE_VIP = 1 << 2;
+    public static final int BADGE_SUBSCRIBER = 1 << 3;
+
+    private final StreamEventType type;
+    private final String user;
+    private final String platform;
+    private final int count;
+    private final String text;
+    private final long timestamp;
+    private final int mergedCount;
+    private final List<String> sampleUsers;
+    private final int badges;
+
+    private StreamEvent(StreamEventType type, String user, String platform, int count, String text, long timestamp) {
+        this(type, user, platform, count, text, timestamp, 1, List.of(), 0);
+    }
+
+    private StreamEvent(StreamEventType type, String user, String platform, int count, String text, long timestamp,
+                        int mergedCount, List<String> sampleUsers, int badges) {
+        this.type = type;
+        this.user = user;
+        this.platform = platform;
+        this.count = count;
+        this.text = text;
+        this.timestamp = timestamp;
+        this.mergedCount = mergedCount;
+        this.sampleUsers = sampleUsers;
+        this.badges = badges;
+    }
+
+    /**
+     * Creates an aggregate standing for several events of the same type.
+     * @param type The type of the merged events
+     * @param user The shared user (e.g. the gifter), or null when the events came from many users
+     * @param platform The platform of the first merged event
+     * @param mergedCount How many events were merged into this one
+     * @param totalCount Sum of counts over the whole burst (e.g. total gifted subs)
+     * @param sampleUsers A few of the users involved, in arrival order
+     */
+    public static StreamEvent burst(StreamEventType type, String user, String platform, int mergedCount,
+                                    int totalCount, List<String> sampleUsers) {
+        return new StreamEvent(type, user, platform, totalCount, null, System.currentTimeMillis(),
+                mergedCount, List.copyOf(sampleUsers), 0);
+    }
+
+    /**
+     * Recreates an event exactly as it was, e.g. one read back after a restart.
+     */
+    public static StreamEvent restore(StreamEventType type, String user, String platform, int count, String text,
+                                      long timestamp, int mergedCount, List<String> sampleUsers, int badges) {
+        return new StreamEvent(type, user, platform, count, text, timestamp, mergedCount, List.copyOf(sampleUsers),
+                badges);
+    }
+
+    public static StreamEvent follow(String followerName, String platform) {
+        return new StreamEvent(StreamEventType.FOLLOW, followerName, platform, 1, null, System.currentTimeMillis());
+    }
+
+    public static StreamEvent subscribe(String subscriberName, int months, String platform) {
+        return new StreamEvent(StreamEventType.SUBSCRIBE, subscriberName, platform, months, null, System.currentTimeMillis());
+    }
+
+    public static StreamEvent giftSub(String gifterName, int amount, String platform) {
+        return new StreamEvent(StreamEventType.GIFT_SUB, gifterName, platform, amount, null, System.currentTimeMillis());
+    }
+
+    public static StreamEvent donation(String donorName, String amount, String platform) {
+        return new StreamEvent(StreamEventType.DONATION, donorName, platform, 1, amount, System.currentTimeMillis());
+    }
+
+    public static StreamEvent raid(String raiderName, int viewers, String platform) {
+        return new StreamEvent(StreamEventType.RAID, raiderName, platform, viewers, null, System.currentTimeMillis());
+    }
+
+    public static StreamEvent chat(String sender, String message, String platform) {
+        return chat(sender, message, platform, 0);
+    }
+
+    /**
+     * @param badges BADGE_* flags of the sender
+     */
+    public static StreamEvent chat(String sender, String message, String platform, int badges) {
+        return new StreamEvent(StreamEventType.CHAT, sender, platform, 1, message, System.currentTimeMillis(),
+                1, List.of(), badges);
+    }
+
+    /**
+     * Marker telling the player that chat messages were left out under load.
+     * @param skipped How many messages were skipped
+     */
+    public static StreamEvent chatSkipped(int skipped, String platform) {
+        return new StreamEvent(StreamEventType.CHAT, null, platform, skipped, null, System.currentTimeMillis());
+    }
+
+    public StreamEventType getType() {
+        return type;
+    }
+
+    /**
+     * The viewer behind the event (follower, subscriber, gifter, donor, raider or chat sender).
+     */
+    public String getUser() {
+        return user;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    /**
+     * Months for subscriptions, subs for gifts, viewers for raids; 1 otherwise.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Donation amount for donations, message text for chat; null otherwise.
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * When the event was decoded, in epoch milliseconds.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Number of original events this event stands for; 1 unless it is a burst.
+     */
+    public int getMergedCount() {
+        return mergedCount;
+    }
+
+    public boolean isBurst() {
+        return mergedCount > 1;
+    }
+
+    /**
+     * For bursts, a few of the users involved in arrival order; empty otherwise.
+     */
+    public List<String> getSampleUsers() {
+        return sampleUsers;
+    }
+
+    /**
+     * BADGE_* flags of a chat sender; 0 for other events.
+     */
+    public int getBadges() {
+        return badges;
+    }
+
+    public boolean hasBadge(int badge) {
+        return (badges & badge) != 0;
+    }
+
+    /**
+     * True for the marker created by {@link #chatSkipped}; its count is the number skipped.
+     */
+    public boolean isSkipMarker() {
+        return type == StreamEventType.CHAT && user == null;
+    }
+
+    @Override
+    public String toString() {
+        return type + "{user=" + user + ", platform=" + platform + ", count=" + count + ", text=" + text
+                + (isBurst() ? ", merged=" + mergedCount : "") + "}";
+    }
+}
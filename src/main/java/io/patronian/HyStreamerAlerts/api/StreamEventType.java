@@ -0,0 +1,26 @@
+package io.patronian.HyStreamerAlerts.api;
+
+/**
+ * Kinds of stream events that can be shown to a player.
+ */
+public enum StreamEventType {
+    FOLLOW(1),
+    SUBSCRIBE(2),
+    GIFT_SUB(3),
+    DONATION(4),
+    RAID(5),
+    CHAT(0);
+
+    private final int priority;
+
+    StreamEventType(int priority) {
+        this.priority = priority;
+    }
+
+    /**
+     * Display priority for titles; higher values are shown first.
+     */
+    public int getPriority() {
+        return priority;
+    }
+}
@@ -12,18 +12,39 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import io.patronian.HyStreamerAlerts.HyStreamerAlertsPlugin;
+import io.patronian.HyStreamerAlerts.OnlinePlayers;
 import io.patronian.HyStreamerAlerts.api.AlertProvider;
 import io.patronian.HyStreamerAlerts.api.ChatHandler;
 import io.patronian.HyStreamerAlerts.api.ChatProvider;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+import io.patronian.HyStreamerAlerts.dispatch.ChatGovernor;
+import io.patronian.HyStreamerAlerts.dispatch.CoalescingAlertHandler;
+import io.patronian.HyStreamerAlerts.dispatch.DedupingAlertHandler;
+import io.patronian.HyStreamerAlerts.dispatch.Lane;
+import io.patronian.HyStreamerAlerts.dispatch.RenderDispatcher;
+import io.patronian.HyStreamerAlerts.dispatch.WatchIndex;
+import io.patronian.HyStreamerAlerts.history.AlertHistory;
+import io.patronian.HyStreamerAlerts.history.HistoryEntry;
+import io.patronian.HyStreamerAlerts.impl.ChatPrefixCache;
 import io.patronian.HyStreamerAlerts.impl.HytaleChatHandler;
+import io.patronian.HyStreamerAlerts.impl.KickAlertProvider;
+import io.patronian.HyStreamerAlerts.impl.TitleSequencer;
 import io.patronian.HyStreamerAlerts.manager.AlertDataManager;
+import io.patronian.HyStreamerAlerts.manager.OfflineInbox;
 
 import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Main Streamer Alerts command with subcommands.
- * Usage: /sa on|off|status|connect|disconnect|setbid|help
+ * Usage: /sa on|off|status|connect|disconnect|setbid|setchat|setkick|watch|unwatch|history|stats|help
  */
 public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
     
@@ -38,8 +59,13 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
         addSubCommand(new SaDisconnectCommand());
         addSubCommand(new SaSetBidCommand());
         addSubCommand(new SaSetChatCommand());
+        addSubCommand(new SaSetKickCommand());
+        addSubCommand(new SaWatchCommand());
+        addSubCommand(new SaUnwatchCommand());
+        addSubCommand(new SaHistoryCommand());
         addSubCommand(new SaTestChatCommand());
         addSubCommand(new SaDebugCommand());
+        addSubCommand(new SaStatsCommand());
         addSubCommand(new SaHelpCommand());
     }
 
@@ -56,8 +82,12 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
         playerRef.sendMessage(Message.raw("/sa off - Disable alerts"));
         playerRef.sendMessage(Message.raw("/sa setbid <id> - Set Botrix broadcast ID"));
         playerRef.sendMessage(Message.raw("/sa setchat <id> - Set Botrix Chat ID"));
+        playerRef.sendMessage(Message.raw("/sa setkick <id> - Set Kick broadcaster ID"));
         playerRef.sendMessage(Message.raw("/sa connect - Connect to Botrix"));
         playerRef.sendMessage(Message.raw("/sa disconnect - Disconnect from Botrix"));
+        playerRef.sendMessage(Message.raw("/sa watch <player> - Watch another streamer's alerts and chat"));
+        playerRef.sendMessage(Message.raw("/sa unwatch - Stop watching"));
+        playerRef.sendMessage(Message.raw("/sa history [type] [n] - Show your latest alerts"));
         playerRef.sendMessage(Message.raw("/sa status - Show current status"));
         playerRef.sendMessage(Message.raw("/sa testchat [message] - Simulate a chat message"));
     }
@@ -66,6 +96,17 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
         return HyStreamerAlertsPlugin.getInstance().getAlertDataManager().isEnabled(playerId);
     }
 
+    /**
+     * Looks the streamer up for every alert, so a connection keeps working across rejoins and
+     * alerts that arrive while they are away go to their offline inbox.
+     */
+    public static Supplier<PlayerRef> streamerRef(PlayerRef playerRef) {
+        OnlinePlayers onlinePlayers = HyStreamerAlertsPlugin.getInstance().getOnlinePlayers();
+        onlinePlayers.add(playerRef);
+        UUID playerId = playerRef.getUuid();
+        return () -> onlinePlayers.get(playerId);
+    }
+
     public static String extractIdFromUrl(String url) {
         if (url == null) return null;
         if (!url.startsWith("http")) return url;
@@ -109,13 +150,14 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
             AlertDataManager dataManager = plugin.getAlertDataManager();
             AlertProvider alertProvider = plugin.getServiceRegistry().getDefaultAlertProvider();
             ChatProvider chatProvider = plugin.getServiceRegistry().getDefaultChatProvider();
+            plugin.getWatchIndex().registerStreamer(playerRef);
             
             boolean somethingDone = false;
 
             if (dataManager.hasBroadcastId(playerId) && alertProvider != null) {
                 if (!alertProvider.isConnected(playerId)) {
                     String broadcastId = dataManager.getBroadcastId(playerId);
-                    alertProvider.connect(playerId, broadcastId, () -> playerRef);
+                    alertProvider.connect(playerId, broadcastId, streamerRef(playerRef));
                     playerRef.sendMessage(Message.raw("Connecting to Alerts (" + alertProvider.getProviderName() + ")..."));
                     somethingDone = true;
                 } else {
@@ -128,7 +170,7 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
             if (dataManager.hasChatId(playerId) && chatProvider != null) {
                 if (!chatProvider.isConnected(playerId)) {
                     String chatId = dataManager.getChatId(playerId);
-                    chatProvider.connect(playerId, chatId, () -> playerRef);
+                    chatProvider.connect(playerId, chatId, streamerRef(playerRef));
                     playerRef.sendMessage(Message.raw("Connecting to Chat (" + chatProvider.getProviderName() + ")..."));
                     somethingDone = true;
                 } else {
@@ -138,6 +180,17 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
                 playerRef.sendMessage(Message.raw("No Chat ID set! Use /sa setchat <chat_id>"));
             }
 
+            AlertProvider kickProvider = plugin.getServiceRegistry().getAlertProvider("kick");
+            if (dataManager.hasKickBroadcasterId(playerId) && kickProvider != null) {
+                if (!kickProvider.isConnected(playerId)) {
+                    kickProvider.connect(playerId, dataManager.getKickBroadcasterId(playerId), streamerRef(playerRef));
+                    playerRef.sendMessage(Message.raw("Listening for Kick webhooks..."));
+                    somethingDone = true;
+                } else {
+                    playerRef.sendMessage(Message.raw("Already listening for Kick webhooks."));
+                }
+            }
+
             if (somethingDone) {
                 dataManager.setEnabled(playerId, true);
                 playerRef.sendMessage(Message.raw("Streamer alerts enabled!"));
@@ -187,13 +240,28 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
             boolean hasChat = dataManager.hasChatId(playerId);
             boolean connected = alertProvider != null && alertProvider.isConnected(playerId);
             boolean chatConnected = chatProvider != null && chatProvider.isConnected(playerId);
+            AlertProvider kickProvider = plugin.getServiceRegistry().getAlertProvider("kick");
+            boolean kickConnected = kickProvider != null && kickProvider.isConnected(playerId);
             
             playerRef.sendMessage(Message.raw("=== Streamer Alerts Status ==="));
+            if (!dataManager.isReady()) {
+                playerRef.sendMessage(Message.raw("Player settings are still loading, try again in a moment"));
+            }
             playerRef.sendMessage(Message.raw("Alerts Enabled: " + (enabled ? "Yes" : "No")));
             playerRef.sendMessage(Message.raw("Broadcast ID: " + (hasBid ? dataManager.getBroadcastId(playerId) : "Not set")));
             playerRef.sendMessage(Message.raw("Chat ID: " + (hasChat ? dataManager.getChatId(playerId) : "Not set")));
             playerRef.sendMessage(Message.raw("Alert Service: " + (connected ? "Connected" : "Disconnected")));
             playerRef.sendMessage(Message.raw("Chat Service: " + (chatConnected ? "Connected" : "Disconnected")));
+            playerRef.sendMessage(Message.raw("Kick Broadcaster ID: " + (dataManager.hasKickBroadcasterId(playerId) ? dataManager.getKickBroadcasterId(playerId) : "Not set")));
+            playerRef.sendMessage(Message.raw("Kick Webhooks: " + (kickConnected ? "Listening" : "Not listening")));
+            WatchIndex watchIndex = plugin.getWatchIndex();
+            int watchers = watchIndex.getWatchers(playerId).length;
+            if (watchers > 0) {
+                playerRef.sendMessage(Message.raw("Watchers: " + watchers));
+            }
+            if (watchIndex.getWatched(playerId) != null) {
+                playerRef.sendMessage(Message.raw("Watching another stream (/sa unwatch to stop)"));
+            }
         }
     }
     
@@ -213,13 +281,14 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
             AlertDataManager dataManager = plugin.getAlertDataManager();
             AlertProvider alertProvider = plugin.getServiceRegistry().getDefaultAlertProvider();
             ChatProvider chatProvider = plugin.getServiceRegistry().getDefaultChatProvider();
+            plugin.getWatchIndex().registerStreamer(playerRef);
             
             boolean somethingDone = false;
 
             if (dataManager.hasBroadcastId(playerId) && alertProvider != null) {
                 if (!alertProvider.isConnected(playerId)) {
                     String broadcastId = dataManager.getBroadcastId(playerId);
-                    alertProvider.connect(playerId, broadcastId, () -> playerRef);
+                    alertProvider.connect(playerId, broadcastId, streamerRef(playerRef));
                     playerRef.sendMessage(Message.raw("Connecting to Alerts..."));
                     somethingDone = true;
                 } else {
@@ -232,7 +301,7 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
             if (dataManager.hasChatId(playerId) && chatProvider != null) {
                 if (!chatProvider.isConnected(playerId)) {
                     String chatId = dataManager.getChatId(playerId);
-                    chatProvider.connect(playerId, chatId, () -> playerRef);
+                    chatProvider.connect(playerId, chatId, streamerRef(playerRef));
                     playerRef.sendMessage(Message.raw("Connecting to Chat..."));
                     somethingDone = true;
                 } else {
@@ -242,6 +311,17 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
                  playerRef.sendMessage(Message.raw("No Chat ID set! Use /sa setchat <chat_id>"));
             }
 
+            AlertProvider kickProvider = plugin.getServiceRegistry().getAlertProvider("kick");
+            if (dataManager.hasKickBroadcasterId(playerId) && kickProvider != null) {
+                if (!kickProvider.isConnected(playerId)) {
+                    kickProvider.connect(playerId, dataManager.getKickBroadcasterId(playerId), streamerRef(playerRef));
+                    playerRef.sendMessage(Message.raw("Listening for Kick webhooks..."));
+                    somethingDone = true;
+                } else {
+                    playerRef.sendMessage(Message.raw("Already listening for Kick webhooks."));
+                }
+            }
+
             if (somethingDone) {
                 dataManager.setEnabled(playerId, true);
             }
@@ -263,8 +343,11 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
             AlertProvider alertProvider = HyStreamerAlertsPlugin.getInstance().getServiceRegistry().getDefaultAlertProvider();
             ChatProvider chatProvider = HyStreamerAlertsPlugin.getInstance().getServiceRegistry().getDefaultChatProvider();
             
+            AlertProvider kickProvider = HyStreamerAlertsPlugin.getInstance().getServiceRegistry().getAlertProvider("kick");
+            
             if (alertProvider != null) alertProvider.disconnect(playerId);
             if (chatProvider != null) chatProvider.disconnect(playerId);
+            if (kickProvider != null) kickProvider.disconnect(playerId);
             
             playerRef.sendMessage(Message.raw("Disconnected from services"));
         }
@@ -341,6 +424,215 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
         }
     }
     
+    /**
+     * /sa setkick <broadcaster_id> - Set the numeric Kick broadcaster ID used to route webhooks
+     */
+    public static class SaSetKickCommand extends AbstractPlayerCommand {
+        private final RequiredArg<String> broadcasterIdArg;
+
+        public SaSetKickCommand() {
+            super("setkick", "Set Kick broadcaster ID");
+            this.broadcasterIdArg = withRequiredArg("broadcasterId", "Your numeric Kick broadcaster ID", ArgTypes.STRING);
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext ctx, @Nonnull Store<EntityStore> store,
+                              @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            UUID playerId = playerRef.getUuid();
+            HyStreamerAlertsPlugin plugin = HyStreamerAlertsPlugin.getInstance();
+            AlertDataManager dataManager = plugin.getAlertDataManager();
+
+            String input = ctx.get(broadcasterIdArg);
+            long broadcasterId = input == null ? -1 : KickAlertProvider.parseBroadcasterId(input);
+            if (broadcasterId <= 0) {
+                playerRef.sendMessage(Message.raw("Usage: /sa setkick <numeric_broadcaster_id>"));
+                return;
+            }
+
+            dataManager.setKickBroadcasterId(playerId, String.valueOf(broadcasterId));
+            playerRef.sendMessage(Message.raw("Kick broadcaster ID set: " + broadcasterId));
+
+            AlertProvider kickProvider = plugin.getServiceRegistry().getAlertProvider("kick");
+            if (kickProvider != null && kickProvider.isConnected(playerId)) {
+                kickProvider.connect(playerId, String.valueOf(broadcasterId), streamerRef(playerRef));
+                playerRef.sendMessage(Message.raw("Kick webhooks now routed to you"));
+            } else {
+                playerRef.sendMessage(Message.raw("Use /sa connect to start receiving Kick webhooks"));
+            }
+        }
+    }
+    
+    /**
+     * /sa watch <player> - Receive another streamer's alerts and chat
+     */
+    public static class SaWatchCommand extends AbstractPlayerCommand {
+        private final RequiredArg<String> playerArg;
+
+        public SaWatchCommand() {
+            super("watch", "Watch another streamer's alerts and chat");
+            this.playerArg = withRequiredArg("player", "The streamer's player name", ArgTypes.STRING);
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext ctx, @Nonnull Store<EntityStore> store,
+                              @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            WatchIndex watchIndex = HyStreamerAlertsPlugin.getInstance().getWatchIndex();
+
+            String name = ctx.get(playerArg);
+            if (name == null || name.trim().isEmpty()) {
+                playerRef.sendMessage(Message.raw("Usage: /sa watch <player>"));
+                return;
+            }
+
+            UUID streamerId = watchIndex.findStreamer(name.trim());
+            if (streamerId == null) {
+                playerRef.sendMessage(Message.raw(name.trim() + " has not connected a stream yet"));
+                return;
+            }
+            if (streamerId.equals(playerRef.getUuid())) {
+                playerRef.sendMessage(Message.raw("You already receive your own stream"));
+                return;
+            }
+
+            watchIndex.watch(playerRef, streamerId);
+            playerRef.sendMessage(Message.raw("Now watching " + watchIndex.getDisplayName(name.trim())
+                    + "'s stream. Use /sa unwatch to stop"));
+        }
+    }
+
+    /**
+     * /sa unwatch - Stop receiving another streamer's feed
+     */
+    public static class SaUnwatchCommand extends AbstractPlayerCommand {
+        public SaUnwatchCommand() {
+            super("unwatch", "Stop watching another streamer");
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext ctx, @Nonnull Store<EntityStore> store,
+                              @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            UUID previous = HyStreamerAlertsPlugin.getInstance().getWatchIndex().unwatch(playerRef.getUuid());
+            playerRef.sendMessage(Message.raw(previous != null ? "Stopped watching" : "You are not watching anyone"));
+        }
+    }
+
+    /**
+     * /sa history [type] [n] - Show the latest alerts, optionally of one type
+     */
+    public static class SaHistoryCommand extends AbstractPlayerCommand {
+        private static final int DEFAULT_COUNT = 10;
+        private static final int MAX_COUNT = 50;
+        private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+        private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm");
+
+        private final OptionalArg<String> typeArg;
+        private final OptionalArg<String> countArg;
+
+        public SaHistoryCommand() {
+            super("history", "Show your latest stream alerts");
+            this.typeArg = withOptionalArg("type", "follow, sub, gift, donation, raid or all", ArgTypes.STRING);
+            this.countArg = withOptionalArg("n", "How many alerts to show", ArgTypes.STRING);
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext ctx, @Nonnull Store<EntityStore> store,
+                              @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            HyStreamerAlertsPlugin plugin = HyStreamerAlertsPlugin.getInstance();
+            AlertHistory history = plugin.getAlertHistory();
+            String typeText = ctx.get(typeArg);
+            String countText = ctx.get(countArg);
+            // "/sa history 20" gives a count without a type
+            if (countText == null && typeText != null && typeText.chars().allMatch(Character::isDigit)) {
+                countText = typeText;
+                typeText = null;
+            }
+
+            StreamEventType type = null;
+            if (typeText != null && !typeText.equalsIgnoreCase("all")) {
+                type = parseType(typeText);
+                if (type == null) {
+                    playerRef.sendMessage(Message.raw("Usage: /sa history [follow|sub|gift|donation|raid|all] [n]"));
+                    return;
+                }
+            }
+            int count = DEFAULT_COUNT;
+            if (countText != null) {
+                try {
+                    count = Math.max(1, Math.min(MAX_COUNT, Integer.parseInt(countText)));
+                } catch (NumberFormatException e) {
+                    playerRef.sendMessage(Message.raw("Usage: /sa history [follow|sub|gift|donation|raid|all] [n]"));
+                    return;
+                }
+            }
+
+            String label = type == null ? "alerts" : typeText.toLowerCase(Locale.ROOT) + " alerts";
+            // The answer arrives on the history worker; queue it to be sent on the world thread
+            RenderDispatcher dispatcher = plugin.getRenderDispatcher();
+            history.query(playerRef.getUuid(), type, count).thenAccept(entries -> {
+                if (entries.isEmpty()) {
+                    dispatcher.submitNotice(playerRef, "No " + label + " recorded yet");
+                    return;
+                }
+                dispatcher.submitNotice(playerRef, "=== Last " + entries.size() + " " + label + " ===");
+                LocalDate today = LocalDate.now();
+                for (HistoryEntry entry : entries) {
+                    dispatcher.submitNotice(playerRef, formatTime(entry.timestamp(), today) + " " + describe(entry));
+                }
+            });
+        }
+
+        private static StreamEventType parseType(String text) {
+            switch (text.toLowerCase(Locale.ROOT)) {
+                case "follow":
+                case "follows":
+                    return StreamEventType.FOLLOW;
+                case "sub":
+                case "subs":
+                case "subscribe":
+                    return StreamEventType.SUBSCRIBE;
+                case "gift":
+                case "gifts":
+                    return StreamEventType.GIFT_SUB;
+                case "donation":
+                case "donations":
+                case "tip":
+                    return StreamEventType.DONATION;
+                case "raid":
+                case "raids":
+                    return StreamEventType.RAID;
+                default:
+                    return null;
+            }
+        }
+
+        private static String formatTime(long timestamp, LocalDate today) {
+            LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+            return (time.toLocalDate().equals(today) ? TIME : DATE_TIME).format(time);
+        }
+
+        private static String describe(HistoryEntry entry) {
+            String user = entry.user() != null ? entry.user() : "Someone";
+            if (entry.type() == null) {
+                // Written by a newer version with an event type this one does not know
+                return "Alert: " + user;
+            }
+            switch (entry.type()) {
+                case FOLLOW:
+                    return "Follow: " + user;
+                case SUBSCRIBE:
+                    return "Sub: " + user + (entry.count() > 1 ? " (" + entry.count() + " months)" : "");
+                case GIFT_SUB:
+                    return "Gift: " + user + " gifted " + entry.count();
+                case DONATION:
+                    return "Donation: " + user + (entry.text() != null ? " " + entry.text() : "");
+                case RAID:
+                    return "Raid: " + user + " (" + entry.count() + " viewers)";
+                default:
+                    return entry.type() + ": " + user;
+            }
+        }
+    }
+
     /**
      * /sa testchat [message] - Simulate a chat message
      */
@@ -388,6 +680,94 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
         }
     }
 
+    /**
+     * /sa stats - Show plugin runtime metrics
+     */
+    public static class SaStatsCommand extends AbstractPlayerCommand {
+        public SaStatsCommand() {
+            super("stats", "Show streamer alert metrics");
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext ctx, @Nonnull Store<EntityStore> store,
+                               @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            HyStreamerAlertsPlugin plugin = HyStreamerAlertsPlugin.getInstance();
+            playerRef.sendMessage(Message.raw("=== Streamer Alerts Stats ==="));
+
+            RenderDispatcher dispatcher = plugin.getRenderDispatcher();
+            if (dispatcher != null) {
+                playerRef.sendMessage(Message.raw("Render queue: " + dispatcher.getQueueDepth()
+                        + " pending, " + dispatcher.getRenderedCount() + "/" + dispatcher.getSubmittedCount() + " rendered"));
+                playerRef.sendMessage(Message.raw("Render ticks over budget: " + dispatcher.getTicksOverBudget()
+                        + ", slowest tick: " + dispatcher.getMaxTickMicros() + "us"));
+                for (Lane lane : Lane.values()) {
+                    playerRef.sendMessage(Message.raw("  " + lane + " lane: " + dispatcher.getLaneDepth(lane)
+                            + " queued, wait avg " + dispatcher.getLaneAvgWaitMicros(lane)
+                            + "us / max " + dispatcher.getLaneMaxWaitMicros(lane) + "us"));
+                }
+            }
+
+            DedupingAlertHandler deduper = plugin.getAlertDeduper();
+            if (deduper != null) {
+                playerRef.sendMessage(Message.raw("Duplicate alerts: " + deduper.getExactDuplicates() + " exact, "
+                        + deduper.getProbableDuplicates() + " probable, " + deduper.getDroppedCount() + " dropped"));
+            }
+
+            CoalescingAlertHandler coalescer = plugin.getAlertCoalescer();
+            if (coalescer != null) {
+                playerRef.sendMessage(Message.raw("Alert bursts: " + coalescer.getAbsorbedCount()
+                        + " events merged into " + coalescer.getAggregatesSent() + " aggregates"));
+            }
+
+            AlertHistory history = plugin.getAlertHistory();
+            if (history != null) {
+                playerRef.sendMessage(Message.raw("Alert history: " + history.getRecordedCount() + " recorded, "
+                        + history.getDroppedCount() + " not written under load"));
+            }
+
+            OfflineInbox inbox = plugin.getOfflineInbox();
+            if (inbox != null) {
+                playerRef.sendMessage(Message.raw("Offline inbox: " + inbox.getPendingPlayers() + " players waiting, "
+                        + inbox.getStoredCount() + " alerts held, " + inbox.getDroppedCount() + " dropped (full)"));
+            }
+
+            ChatGovernor governor = plugin.getChatGovernor();
+            if (governor != null) {
+                playerRef.sendMessage(Message.raw("Chat: " + governor.getPassedCount() + " shown, "
+                        + governor.getSkippedCount() + " skipped under load"));
+            }
+
+            HytaleChatHandler chatRenderer = plugin.getHytaleChatHandler();
+            if (chatRenderer != null) {
+                playerRef.sendMessage(Message.raw("Chat lines: " + chatRenderer.getLinesRendered() + " in "
+                        + chatRenderer.getMessagesSent() + " messages"));
+            }
+
+            playerRef.sendMessage(Message.raw("Watchers: " + plugin.getWatchIndex().getWatcherCount()));
+
+            ChatPrefixCache prefixes = plugin.getChatPrefixCache();
+            if (prefixes != null) {
+                long lookups = prefixes.getHitCount() + prefixes.getMissCount();
+                long hitPercent = lookups == 0 ? 0 : prefixes.getHitCount() * 100 / lookups;
+                playerRef.sendMessage(Message.raw("Chat prefixes: " + prefixes.size() + " cached, "
+                        + hitPercent + "% hits (" + prefixes.getHitCount() + " hits, "
+                        + prefixes.getMissCount() + " misses)"));
+            }
+
+            TitleSequencer titles = plugin.getTitleSequencer();
+            if (titles != null) {
+                playerRef.sendMessage(Message.raw("Titles: " + titles.getShownCount() + " shown, "
+                        + titles.getMergedCount() + " merged, " + titles.getDroppedCount() + " dropped"));
+            }
+
+            AlertProvider kick = plugin.getServiceRegistry().getAlertProvider("kick");
+            if (kick instanceof KickAlertProvider kickProvider) {
+                playerRef.sendMessage(Message.raw("Kick rate-limited (per source): " + kickProvider.getSourceRejections()));
+                playerRef.sendMessage(Message.raw("Kick rate-limited (per streamer): " + kickProvider.getStreamerRejections()));
+            }
+        }
+    }
+
     /**
      * /sa help - Show help
      */
@@ -404,11 +784,16 @@ public class HyStreamerAlertsCommands extends AbstractPlayerCommand {
             playerRef.sendMessage(Message.raw("/sa off - Disable alerts"));
             playerRef.sendMessage(Message.raw("/sa setbid <id> - Set Botrix broadcast ID"));
             playerRef.sendMessage(Message.raw("/sa setchat <chat_id> [channel_id] - Set Botrix Chat IDs"));
+            playerRef.sendMessage(Message.raw("/sa setkick <broadcaster_id> - Set Kick broadcaster ID"));
             playerRef.sendMessage(Message.raw("/sa connect - Connect to Botrix"));
             playerRef.sendMessage(Message.raw("/sa disconnect - Disconnect from Botrix"));
+            playerRef.sendMessage(Message.raw("/sa watch <player> - Watch another streamer's alerts and chat"));
+            playerRef.sendMessage(Message.raw("/sa unwatch - Stop watching"));
+            playerRef.sendMessage(Message.raw("/sa history [type] [n] - Show your latest alerts"));
             playerRef.sendMessage(Message.raw("/sa status - Show current status"));
             playerRef.sendMessage(Message.raw("/sa testchat [message] - Simulate a chat message"));
             playerRef.sendMessage(Message.raw("/sa debug <on|off> - Toggle debug info"));
+            playerRef.sendMessage(Message.raw("/sa stats - Show runtime metrics"));
         }
     }
 }
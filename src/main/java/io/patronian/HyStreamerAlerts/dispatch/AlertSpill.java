@@ -0,0 +1,187 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Alerts that were still queued for rendering, or rendered as titles still waiting their turn
+ * on screen, when the server stopped, kept in pending-alerts.dat until the next start.
+ *
+ * Each record is the recipient, the streamer whose feed the alert came from, and the event
+ * with its original timestamp. The file is written once at shutdown and deleted as soon as
+ * it has been read back.
+ */
+public class AlertSpill {
+
+    private static final int MAGIC = 0x48534153;
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Path tempFile;
+
+    public AlertSpill(Path dataFolder) {
+        this.file = dataFolder.resolve("pending-alerts.dat");
+        this.tempFile = dataFolder.resolve("pending-alerts.dat.tmp");
+    }
+
+    /**
+     * Writes the jobs left over after the shutdown drain.
+     */
+    public void write(List<RenderJob> jobs) {
+        if (jobs.isEmpty()) return;
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(jobs.size());
+                for (RenderJob job : jobs) {
+                    writeUuid(out, job.getPlayer().getUuid());
+                    writeUuid(out, job.getStreamerId());
+                    writeEvent(out, job.getEvent());
+                }
+                out.flush();
+                channel.force(true);
+            }
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            System.out.println("[HyStreamerAlerts] Saved " + jobs.size() + " undelivered alerts for the next start");
+        } catch (IOException e) {
+            System.out.println("[HyStreamerAlerts] Failed to save undelivered alerts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the file left by the last shutdown, if any, deletes it and hands each alert on:
+     * to the render queue if its recipient is online, to the offline inbox if the recipient
+     * is the streamer themselves, and otherwise (a watcher who is not online) nowhere.
+     *
+     * @param onlinePlayer Looks up an online player, null if they are not online
+     * @param offline Receives alerts for streamers who are not online
+     */
+    public void replay(RenderDispatcher dispatcher, Function<UUID, PlayerRef> onlinePlayer,
+                       BiConsumer<UUID, StreamEvent> offline) {
+        if (!Files.exists(file)) return;
+        List<Spilled> spilled = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not an alert spill file");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                UUID recipientId = readUuid(in);
+                UUID streamerId = readUuid(in);
+                StreamEvent event = readEvent(in);
+                if (event == null) continue;
+                spilled.add(new Spilled(recipientId, streamerId, event));
+            }
+        } catch (IOException e) {
+            System.out.println("[HyStreamerAlerts] Failed to read undelivered alerts: " + e.getMessage());
+        }
+        try {
+            Files.delete(file);
+        } catch (IOException e) {
+            // Replaying the same alerts again on every start would be worse than losing them
+            System.out.println("[HyStreamerAlerts] Failed to delete " + file.getFileName() + ": " + e.getMessage());
+        }
+
+        int queued = 0;
+        int held = 0;
+        for (Spilled alert : spilled) {
+            PlayerRef recipient = onlinePlayer.apply(alert.recipientId());
+            if (recipient != null) {
+                dispatcher.submit(RenderJob.event(recipient, alert.streamerId(), alert.event()));
+                queued++;
+            } else if (alert.recipientId().equals(alert.streamerId())) {
+                offline.accept(alert.streamerId(), alert.event());
+                held++;
+            }
+        }
+        System.out.println("[HyStreamerAlerts] Restored " + spilled.size() + " undelivered alerts ("
+                + queued + " queued, " + held + " held for offline streamers)");
+    }
+
+    private static void writeEvent(DataOutputStream out, StreamEvent event) throws IOException {
+        out.writeUTF(event.getType().name());
+        writeNullable(out, event.getUser());
+        writeNullable(out, event.getPlatform());
+        out.writeInt(event.getCount());
+        writeNullable(out, event.getText());
+        out.writeLong(event.getTimestamp());
+        out.writeInt(event.getMergedCount());
+        out.writeByte(event.getSampleUsers().size());
+        for (String user : event.getSampleUsers()) {
+            out.writeUTF(user);
+        }
+        out.writeInt(event.getBadges());
+    }
+
+    /**
+     * @return The event, or null if it has a type this version does not know
+     */
+    private static StreamEvent readEvent(DataInputStream in) throws IOException {
+        String typeName = in.readUTF();
+        String user = readNullable(in);
+        String platform = readNullable(in);
+        int count = in.readInt();
+        String text = readNullable(in);
+        long timestamp = in.readLong();
+        int mergedCount = in.readInt();
+        List<String> sample = new ArrayList<>();
+        for (int i = in.readUnsignedByte(); i > 0; i--) {
+            sample.add(in.readUTF());
+        }
+        int badges = in.readInt();
+        try {
+            return StreamEvent.restore(StreamEventType.valueOf(typeName), user, platform, count, text, timestamp,
+                    mergedCount, sample, badges);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private record Spilled(UUID recipientId, UUID streamerId, StreamEvent event) {
+    }
+}
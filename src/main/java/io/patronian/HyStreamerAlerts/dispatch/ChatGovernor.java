@@ -0,0 +1,169 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-player chat rate governor.
+ *
+ * Tracks each player's incoming chat rate as an exponentially decaying average. Below the
+ * limit every message passes. Above it, messages from the broadcaster, moderators, VIPs and
+ * subscribers, and messages mentioning the player, still pass; the rest are sampled down to
+ * the limit and counted, so the player can be told how many were skipped. The count goes out
+ * ahead of the next message shown, or from {@link #flushSkipped} once chat has gone quiet.
+ * The limit shrinks
+ * as the chat lane backs up, so chat is shed before the render thread falls behind.
+ */
+public class ChatGovernor {
+
+    private static final double RATE_WINDOW_SECONDS = 2.0;
+    private static final long MARKER_INTERVAL_NANOS = 1_000_000_000L;
+    private static final long IDLE_NANOS = 30_000_000_000L;
+    private static final int PRIORITY_BADGES =
+            StreamEvent.BADGE_BROADCASTER | StreamEvent.BADGE_MODERATOR | StreamEvent.BADGE_VIP
+                    | StreamEvent.BADGE_SUBSCRIBER;
+
+    private final RenderDispatcher dispatcher;
+    private final double maxPerSecond;
+    private final int pressureDepth;
+    private final Map<UUID, RateState> states = new ConcurrentHashMap<>();
+
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private long lastFlushNanos = System.nanoTime();
+
+    /**
+     * @param dispatcher Source of chat lane depth for load-based adaptation, and where
+     *                   {@link #flushSkipped} queues its markers
+     * @param maxPerSecond Chat messages per second a player is shown before sampling starts
+     * @param pressureDepth Chat lane depth at which the limit is halved
+     */
+    public ChatGovernor(RenderDispatcher dispatcher, double maxPerSecond, int pressureDepth) {
+        this.dispatcher = dispatcher;
+        this.maxPerSecond = maxPerSecond;
+        this.pressureDepth = Math.max(1, pressureDepth);
+    }
+
+    /**
+     * Decides whether a chat message is shown.
+     * @return -1 to drop the message; otherwise how many skipped messages to report before it
+     */
+    public int admit(PlayerRef player, StreamEvent event) {
+        if (maxPerSecond <= 0) return 0;
+
+        double limit = maxPerSecond / (1.0 + (double) dispatcher.getLaneDepth(Lane.CHAT) / pressureDepth);
+        boolean priority = (event.getBadges() & PRIORITY_BADGES) != 0 || mentions(player, event.getText());
+
+        RateState state = states.computeIfAbsent(player.getUuid(), id -> new RateState());
+        synchronized (state) {
+            long now = System.nanoTime();
+            double rate = state.observe(now);
+
+            boolean show;
+            if (rate <= limit || priority) {
+                show = true;
+            } else {
+                // Sample down to the limit with a credit accumulator, evenly rather than randomly
+                state.credit += limit / rate;
+                show = state.credit >= 1.0;
+                if (show) state.credit -= 1.0;
+            }
+
+            if (!show) {
+                state.player = player;
+                state.platform = event.getPlatform();
+                state.skipped++;
+                skipped.increment();
+                return -1;
+            }
+            passed.increment();
+            if (state.skipped > 0 && now - state.lastMarkerNanos >= MARKER_INTERVAL_NANOS) {
+                int report = state.skipped;
+                state.skipped = 0;
+                state.lastMarkerNanos = now;
+                return report;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Reports messages still counted as skipped once a marker interval has passed without
+     * another message being shown, so the count is not held back until chat picks up again.
+     * Also forgets players who have left. Runs as a tick listener.
+     */
+    public void flushSkipped() {
+        long now = System.nanoTime();
+        if (now - lastFlushNanos < MARKER_INTERVAL_NANOS) return;
+        lastFlushNanos = now;
+
+        Iterator<RateState> it = states.values().iterator();
+        while (it.hasNext()) {
+            RateState state = it.next();
+            PlayerRef player;
+            StreamEvent marker;
+            synchronized (state) {
+                if (state.skipped == 0) {
+                    // Idle long enough for its rate to have decayed to nothing
+                    if (now - state.lastNanos >= IDLE_NANOS) it.remove();
+                    continue;
+                }
+                if (now - state.lastMarkerNanos < MARKER_INTERVAL_NANOS) continue;
+                player = state.player;
+                marker = StreamEvent.chatSkipped(state.skipped, state.platform);
+                state.skipped = 0;
+                state.lastMarkerNanos = now;
+            }
+            if (player.isValid()) {
+                dispatcher.submitToAudience(player, marker);
+            }
+        }
+    }
+
+    private static boolean mentions(PlayerRef player, String text) {
+        if (text == null) return false;
+        String name = player.getUsername();
+        return name != null && !name.isEmpty()
+                && text.toLowerCase(Locale.ROOT).contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    public void forget(UUID playerId) {
+        states.remove(playerId);
+    }
+
+    public long getPassedCount() {
+        return passed.sum();
+    }
+
+    public long getSkippedCount() {
+        return skipped.sum();
+    }
+
+    private static final class RateState {
+        double rate;
+        long lastNanos = System.nanoTime();
+        double credit;
+        int skipped;
+        long lastMarkerNanos;
+        // Where to report skipped messages; set with the first one skipped
+        PlayerRef player;
+        String platform;
+
+        /**
+         * Counts one message and returns the decayed messages-per-second estimate.
+         */
+        double observe(long now) {
+            double elapsed = (now - lastNanos) / 1e9;
+            lastNanos = now;
+            rate = rate * Math.exp(-elapsed / RATE_WINDOW_SECONDS) + 1.0 / RATE_WINDOW_SECONDS;
+            return rate;
+        }
+    }
+}
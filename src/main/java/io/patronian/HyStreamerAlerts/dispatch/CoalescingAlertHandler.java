@@ -0,0 +1,215 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.AlertHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Merges bursts of same-type alerts per player before they reach the render pipeline.
+ *
+ * The first follow, sub or gift for a player passes straight through. Further events of the
+ * same kind within the window only update a running count and a short sample of names; when
+ * the window closes they are sent on as one aggregate event ("12 new followers: A, B, C and
+ * 9 more", "X gifted 25 subs in total"). The aggregate sums up the whole burst: its merged
+ * count, total and sample names all include the leading event that was already shown. Gifts
+ * are merged per gifter. Donations and raids are never merged.
+ */
+public class CoalescingAlertHandler implements AlertHandler {
+
+    private static final int SAMPLE_SIZE = 3;
+
+    private final AlertHandler delegate;
+    private final long windowMillis;
+    private final ScheduledExecutorService scheduler;
+    private final Map<BurstKey, Burst> bursts = new ConcurrentHashMap<>();
+
+    private final LongAdder absorbed = new LongAdder();
+    private final LongAdder aggregatesSent = new LongAdder();
+
+    /**
+     * @param delegate Receives single events and aggregates
+     * @param windowMillis How long to keep merging after the first event; zero or less disables merging
+     */
+    public CoalescingAlertHandler(AlertHandler delegate, long windowMillis) {
+        this.delegate = delegate;
+        this.windowMillis = windowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "HyStreamerAlerts-Coalesce");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onFollow(PlayerRef player, String followerName, String platform) {
+        onEvent(player, StreamEvent.follow(followerName, platform));
+    }
+
+    @Override
+    public void onSubscribe(PlayerRef player, String subscriberName, int months, String platform) {
+        onEvent(player, StreamEvent.subscribe(subscriberName, months, platform));
+    }
+
+    @Override
+    public void onGiftSub(PlayerRef player, String gifterName, int amount, String platform) {
+        onEvent(player, StreamEvent.giftSub(gifterName, amount, platform));
+    }
+
+    @Override
+    public void onDonation(PlayerRef player, String donorName, String amount, String platform) {
+        onEvent(player, StreamEvent.donation(donorName, amount, platform));
+    }
+
+    @Override
+    public void onRaid(PlayerRef player, String raiderName, int viewers, String platform) {
+        onEvent(player, StreamEvent.raid(raiderName, viewers, platform));
+    }
+
+    @Override
+    public void onEvent(PlayerRef player, StreamEvent event) {
+        if (windowMillis <= 0 || player == null || !isMergeable(event.getType())) {
+            delegate.onEvent(player, event);
+            return;
+        }
+
+        String gifter = event.getType() == StreamEventType.GIFT_SUB && event.getUser() != null
+                ? event.getUser().toLowerCase(Locale.ROOT) : null;
+        BurstKey key = new BurstKey(player.getUuid(), event.getType(), gifter);
+
+        boolean[] leading = new boolean[1];
+        bursts.compute(key, (k, burst) -> {
+            if (burst == null) {
+                leading[0] = true;
+                scheduler.schedule(() -> flush(k), windowMillis, TimeUnit.MILLISECONDS);
+                return new Burst(player, event);
+            }
+            burst.add(event);
+            return burst;
+        });
+
+        if (leading[0]) {
+            delegate.onEvent(player, event);
+        } else {
+            absorbed.increment();
+        }
+    }
+
+    private void flush(BurstKey key) {
+        Burst burst = bursts.remove(key);
+        // Only the leading event, which went out on its own
+        if (burst == null || burst.merged == 1) return;
+
+        StreamEvent out;
+        if (burst.merged == 2) {
+            out = burst.last;
+        } else {
+            out = StreamEvent.burst(key.type, key.gifter == null ? null : burst.last.getUser(),
+                    burst.last.getPlatform(), burst.merged, burst.total, burst.sample);
+            aggregatesSent.increment();
+        }
+        try {
+            delegate.onEvent(burst.player, out);
+        } catch (Exception e) {
+            System.out.println("[HyStreamerAlerts] Failed to send merged alert: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends every open burst now, e.g. before shutdown.
+     */
+    public void flushAll() {
+        for (BurstKey key : bursts.keySet()) {
+            flush(key);
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        flushAll();
+    }
+
+    private static boolean isMergeable(StreamEventType type) {
+        return type == StreamEventType.FOLLOW || type == StreamEventType.SUBSCRIBE || type == StreamEventType.GIFT_SUB;
+    }
+
+    /**
+     * Number of events folded into an aggregate instead of being sent individually.
+     */
+    public long getAbsorbedCount() {
+        return absorbed.sum();
+    }
+
+    public long getAggregatesSent() {
+        return aggregatesSent.sum();
+    }
+
+    private static final class BurstKey {
+        final UUID playerId;
+        final StreamEventType type;
+        final String gifter;
+
+        BurstKey(UUID playerId, StreamEventType type, String gifter) {
+            this.playerId = playerId;
+            this.type = type;
+            this.gifter = gifter;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BurstKey)) return false;
+            BurstKey other = (BurstKey) o;
+            return playerId.equals(other.playerId) && type == other.type && Objects.equals(gifter, other.gifter);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(playerId, type, gifter);
+        }
+    }
+
+    /**
+     * Running totals for a burst, counting the leading event; mutated only inside map.compute.
+     */
+    private static final class Burst {
+        final PlayerRef player;
+        final List<String> sample = new ArrayList<>(SAMPLE_SIZE);
+        StreamEvent last;
+        int merged;
+        int total;
+
+        Burst(PlayerRef player, StreamEvent leading) {
+            this.player = player;
+            this.last = leading;
+            this.merged = 1;
+            this.total = leading.getCount();
+            addSample(leading);
+        }
+
+        void add(StreamEvent event) {
+            merged++;
+            total += event.getCount();
+            last = event;
+            addSample(event);
+        }
+
+        private void addSample(StreamEvent event) {
+            if (sample.size() < SAMPLE_SIZE && event.getUser() != null && !sample.contains(event.getUser())) {
+                sample.add(event.getUser());
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.AlertHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops the second copy of a stream event that arrives through more than one provider, e.g.
+ * a follow reported by both Botrix and the Kick webhook.
+ *
+ * Each provider is given its own view from {@link #forProvider}, and every fingerprint is
+ * stored with the provider that reported it. Only a match against another provider's event
+ * is a duplicate; repeats from the same provider, like a gift train or two equal donations,
+ * are real events and pass.
+ *
+ * Each event is fingerprinted twice per player: exactly (type, normalized user, amount) and
+ * loosely (type, normalized user). Fingerprints live in a ring of time buckets, each a fixed-size
+ * hash set, so an event is remembered for at least the window and memory stays bounded.
+ * Exact matches are dropped. Loose matches are counted as probable duplicates and dropped
+ * only for follows and subs, whose month count differs between providers; a second gift,
+ * donation or raid with a different amount is treated as a new event.
+ */
+public class DedupingAlertHandler implements AlertHandler {
+
+    private static final int BUCKETS = 4;
+    private static final int MAX_PROVIDERS = 255;
+    // Events given to this handler directly rather than through a provider view
+    private static final int NO_PROVIDER = 0;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final AlertHandler delegate;
+    private final long bucketMillis;
+    private final FingerprintSet[] exact = new FingerprintSet[BUCKETS];
+    private final FingerprintSet[] probable = new FingerprintSet[BUCKETS];
+    private final long[] bucketEpochs = new long[BUCKETS];
+    private final Map<String, AlertHandler> providers = new ConcurrentHashMap<>();
+
+    private final LongAdder exactDuplicates = new LongAdder();
+    private final LongAdder probableDuplicates = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param delegate Receives every event that is not a duplicate
+     * @param windowMillis How long an event is remembered; zero or less disables deduplication
+     * @param bucketCapacity Fingerprints kept per time bucket
+     */
+    public DedupingAlertHandler(AlertHandler delegate, long windowMillis, int bucketCapacity) {
+        this.delegate = delegate;
+        // With one bucket being filled, the other BUCKETS - 1 must cover the whole window
+        this.bucketMillis = windowMillis <= 0 ? 0 : Math.max(1, windowMillis / (BUCKETS - 1));
+        for (int i = 0; i < BUCKETS; i++) {
+            exact[i] = new FingerprintSet(bucketCapacity);
+            probable[i] = new FingerprintSet(bucketCapacity);
+            bucketEpochs[i] = -1;
+        }
+    }
+
+    @Override
+    public void onFollow(PlayerRef player, String followerName, String platform) {
+        onEvent(player, StreamEvent.follow(followerName, platform));
+    }
+
+    @Override
+    public void onSubscribe(PlayerRef player, String subscriberName, int months, String platform) {
+        onEvent(player, StreamEvent.subscribe(subscriberName, months, platform));
+    }
+
+    @Override
+    public void onGiftSub(PlayerRef player, String gifterName, int amount, String platform) {
+        onEvent(player, StreamEvent.giftSub(gifterName, amount, platform));
+    }
+
+    @Override
+    public void onDonation(PlayerRef player, String donorName, String amount, String platform) {
+        onEvent(player, StreamEvent.donation(donorName, amount, platform));
+    }
+
+    @Override
+    public void onRaid(PlayerRef player, String raiderName, int viewers, String platform) {
+        onEvent(player, StreamEvent.raid(raiderName, viewers, platform));
+    }
+
+    @Override
+    public void onEvent(PlayerRef player, StreamEvent event) {
+        onEvent(NO_PROVIDER, player, event);
+    }
+
+    @Override
+    public void onUndeliverable(UUID playerId, StreamEvent event) {
+        onUndeliverable(NO_PROVIDER, playerId, event);
+    }
+
+    /**
+     * The handler to give a provider, so its events are told apart from other providers'.
+     * @param name The provider's registry name; the same name always gets the same view
+     */
+    public synchronized AlertHandler forProvider(String name) {
+        return providers.computeIfAbsent(name, n -> {
+            if (providers.size() >= MAX_PROVIDERS) {
+                throw new IllegalStateException("Too many alert providers");
+            }
+            return new ProviderView(providers.size() + 1);
+        });
+    }
+
+    private void onEvent(int provider, PlayerRef player, StreamEvent event) {
+        if (bucketMillis > 0 && player != null && event.getUser() != null
+                && isDuplicate(provider, player.getUuid(), event)) {
+            return;
+        }
+        delegate.onEvent(player, event);
+    }
+
+    private void onUndeliverable(int provider, UUID playerId, StreamEvent event) {
+        if (bucketMillis > 0 && event.getUser() != null && isDuplicate(provider, playerId, event)) {
+            return;
+        }
+        delegate.onUndeliverable(playerId, event);
+    }
+
+    private boolean isDuplicate(int provider, UUID playerId, StreamEvent event) {
+        long userHash = hashUser(seed(playerId, event.getType()), event.getUser());
+        long loose = nonZero(mix(userHash));
+        long strict = nonZero(mix(hashAmount(userHash, event)));
+
+        synchronized (this) {
+            long epoch = System.currentTimeMillis() / bucketMillis;
+            int current = (int) (epoch % BUCKETS);
+            if (bucketEpochs[current] != epoch) {
+                exact[current].clear();
+                probable[current].clear();
+                bucketEpochs[current] = epoch;
+            }
+
+            boolean exactMatch = false;
+            boolean looseMatch = false;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (epoch - bucketEpochs[i] >= BUCKETS) continue;
+                exactMatch |= isOtherProvider(exact[i].sourceOf(strict), provider);
+                looseMatch |= isOtherProvider(probable[i].sourceOf(loose), provider);
+            }
+
+            if (exactMatch) {
+                exactDuplicates.increment();
+                dropped.increment();
+                return true;
+            }
+            if (looseMatch) {
+                probableDuplicates.increment();
+                if (event.getType() == StreamEventType.FOLLOW || event.getType() == StreamEventType.SUBSCRIBE) {
+                    dropped.increment();
+                    return true;
+                }
+            }
+            exact[current].add(strict, provider);
+            probable[current].add(loose, provider);
+            return false;
+        }
+    }
+
+    private static boolean isOtherProvider(int source, int provider) {
+        return source != -1 && source != provider;
+    }
+
+    private static long seed(UUID playerId, StreamEventType type) {
+        long h = FNV_OFFSET;
+        h = (h ^ playerId.getMostSignificantBits()) * FNV_PRIME;
+        h = (h ^ playerId.getLeastSignificantBits()) * FNV_PRIME;
+        return (h ^ type.ordinal()) * FNV_PRIME;
+    }
+
+    /**
+     * Folds in the user name case-insensitively, ignoring a leading '@' and surrounding spaces.
+     */
+    private static long hashUser(long h, String user) {
+        int start = 0;
+        int end = user.length();
+        while (start < end && (user.charAt(start) == '@' || Character.isWhitespace(user.charAt(start)))) start++;
+        while (end > start && Character.isWhitespace(user.charAt(end - 1))) end--;
+        for (int i = start; i < end; i++) {
+            h = (h ^ Character.toLowerCase(user.charAt(i))) * FNV_PRIME;
+        }
+        return h;
+    }
+
+    /**
+     * Folds in the amount: the count, plus the digits of a donation amount so "$5.00" and
+     * "5.00 USD" match.
+     */
+    private static long hashAmount(long h, StreamEvent event) {
+        h = (h ^ event.getCount()) * FNV_PRIME;
+        String text = event.getType() == StreamEventType.DONATION ? event.getText() : null;
+        if (text != null) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (Character.isDigit(c) || c == '.') h = (h ^ c) * FNV_PRIME;
+            }
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static long nonZero(long fingerprint) {
+        return fingerprint == 0 ? 1 : fingerprint;
+    }
+
+    public long getExactDuplicates() {
+        return exactDuplicates.sum();
+    }
+
+    /**
+     * Events matching an earlier one by type and user but not amount.
+     */
+    public long getProbableDuplicates() {
+        return probableDuplicates.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Tags everything a provider reports with its id before deduplicating.
+     */
+    private final class ProviderView implements AlertHandler {
+        private final int id;
+
+        ProviderView(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void onFollow(PlayerRef player, String followerName, String platform) {
+            onEvent(player, StreamEvent.follow(followerName, platform));
+        }
+
+        @Override
+        public void onSubscribe(PlayerRef player, String subscriberName, int months, String platform) {
+            onEvent(player, StreamEvent.subscribe(subscriberName, months, platform));
+        }
+
+        @Override
+        public void onGiftSub(PlayerRef player, String gifterName, int amount, String platform) {
+            onEvent(player, StreamEvent.giftSub(gifterName, amount, platform));
+        }
+
+        @Override
+        public void onDonation(PlayerRef player, String donorName, String amount, String platform) {
+            onEvent(player, StreamEvent.donation(donorName, amount, platform));
+        }
+
+        @Override
+        public void onRaid(PlayerRef player, String raiderName, int viewers, String platform) {
+            onEvent(player, StreamEvent.raid(raiderName, viewers, platform));
+        }
+
+        @Override
+        public void onEvent(PlayerRef player, StreamEvent event) {
+            DedupingAlertHandler.this.onEvent(id, player, event);
+        }
+
+        @Override
+        public void onUndeliverable(UUID playerId, StreamEvent event) {
+            DedupingAlertHandler.this.onUndeliverable(id, playerId, event);
+        }
+    }
+}
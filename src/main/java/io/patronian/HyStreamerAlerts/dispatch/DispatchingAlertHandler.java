@@ -0,0 +1,49 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.AlertHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+
+/**
+ * AlertHandler given to providers: decodes each callback into a {@link StreamEvent} and hands
+ * it to the {@link RenderDispatcher} instead of rendering on the caller's thread. The event
+ * goes to the streamer and to anyone watching their feed.
+ */
+public class DispatchingAlertHandler implements AlertHandler {
+
+    private final RenderDispatcher dispatcher;
+
+    public DispatchingAlertHandler(RenderDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void onFollow(PlayerRef player, String followerName, String platform) {
+        onEvent(player, StreamEvent.follow(followerName, platform));
+    }
+
+    @Override
+    public void onSubscribe(PlayerRef player, String subscriberName, int months, String platform) {
+        onEvent(player, StreamEvent.subscribe(subscriberName, months, platform));
+    }
+
+    @Override
+    public void onGiftSub(PlayerRef player, String gifterName, int amount, String platform) {
+        onEvent(player, StreamEvent.giftSub(gifterName, amount, platform));
+    }
+
+    @Override
+    public void onDonation(PlayerRef player, String donorName, String amount, String platform) {
+        onEvent(player, StreamEvent.donation(donorName, amount, platform));
+    }
+
+    @Override
+    public void onRaid(PlayerRef player, String raiderName, int viewers, String platform) {
+        onEvent(player, StreamEvent.raid(raiderName, viewers, platform));
+    }
+
+    @Override
+    public void onEvent(PlayerRef player, StreamEvent event) {
+        dispatcher.submitToAudience(player, event);
+    }
+}
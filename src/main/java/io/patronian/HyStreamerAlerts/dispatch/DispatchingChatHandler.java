@@ -0,0 +1,44 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.ChatHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+
+/**
+ * ChatHandler given to providers: queues each message on the {@link RenderDispatcher}
+ * instead of sending it on the caller's thread, after the {@link ChatGovernor} has had its say.
+ * Messages go to the streamer and to anyone watching their feed.
+ */
+public class DispatchingChatHandler implements ChatHandler {
+
+    private final RenderDispatcher dispatcher;
+    private final ChatGovernor governor;
+
+    public DispatchingChatHandler(RenderDispatcher dispatcher) {
+        this(dispatcher, null);
+    }
+
+    /**
+     * @param governor Sheds chat under load; null passes every message
+     */
+    public DispatchingChatHandler(RenderDispatcher dispatcher, ChatGovernor governor) {
+        this.dispatcher = dispatcher;
+        this.governor = governor;
+    }
+
+    @Override
+    public void onMessage(PlayerRef player, String sender, String message, String platform) {
+        onChat(player, StreamEvent.chat(sender, message, platform));
+    }
+
+    @Override
+    public void onChat(PlayerRef player, StreamEvent event) {
+        if (player == null) return;
+        int skipped = governor == null ? 0 : governor.admit(player, event);
+        if (skipped < 0) return;
+        if (skipped > 0) {
+            dispatcher.submitToAudience(player, StreamEvent.chatSkipped(skipped, event.getPlatform()));
+        }
+        dispatcher.submitToAudience(player, event);
+    }
+}
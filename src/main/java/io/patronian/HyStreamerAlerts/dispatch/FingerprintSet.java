@@ -0,0 +1,67 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity open-addressing set of non-zero 64-bit fingerprints, each tagged with the
+ * small id of the source that added it. It never grows: once half full, further adds are
+ * refused, which keeps memory bounded under any event rate. Not thread-safe.
+ */
+final class FingerprintSet {
+
+    private final long[] slots;
+    private final byte[] sources;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+
+    /**
+     * @param capacity Rounded up to a power of two; up to half of it can be filled
+     */
+    FingerprintSet(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.slots = new long[tableSize];
+        this.sources = new byte[tableSize];
+        this.mask = tableSize - 1;
+        this.maxSize = tableSize / 2;
+    }
+
+    /**
+     * @return The id of the source that added the fingerprint first, or -1 if it is not in the set
+     */
+    int sourceOf(long fingerprint) {
+        int i = (int) fingerprint & mask;
+        while (true) {
+            long slot = slots[i];
+            if (slot == 0) return -1;
+            if (slot == fingerprint) return sources[i] & 0xFF;
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * @param source 0-255; an existing entry keeps its source
+     * @return False if the set is full
+     */
+    boolean add(long fingerprint, int source) {
+        if (size >= maxSize) return false;
+        int i = (int) fingerprint & mask;
+        while (true) {
+            long slot = slots[i];
+            if (slot == fingerprint) return true;
+            if (slot == 0) {
+                slots[i] = fingerprint;
+                sources[i] = (byte) source;
+                size++;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    void clear() {
+        if (size == 0) return;
+        Arrays.fill(slots, 0);
+        size = 0;
+    }
+}
@@ -0,0 +1,57 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.AlertHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.manager.OfflineInbox;
+
+import java.util.UUID;
+
+/**
+ * Keeps alerts for offline streamers in the {@link OfflineInbox} and passes everything else on.
+ */
+public class InboxingAlertHandler implements AlertHandler {
+
+    private final OfflineInbox inbox;
+    private final AlertHandler delegate;
+
+    public InboxingAlertHandler(OfflineInbox inbox, AlertHandler delegate) {
+        this.inbox = inbox;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onFollow(PlayerRef player, String followerName, String platform) {
+        onEvent(player, StreamEvent.follow(followerName, platform));
+    }
+
+    @Override
+    public void onSubscribe(PlayerRef player, String subscriberName, int months, String platform) {
+        onEvent(player, StreamEvent.subscribe(subscriberName, months, platform));
+    }
+
+    @Override
+    public void onGiftSub(PlayerRef player, String gifterName, int amount, String platform) {
+        onEvent(player, StreamEvent.giftSub(gifterName, amount, platform));
+    }
+
+    @Override
+    public void onDonation(PlayerRef player, String donorName, String amount, String platform) {
+        onEvent(player, StreamEvent.donation(donorName, amount, platform));
+    }
+
+    @Override
+    public void onRaid(PlayerRef player, String raiderName, int viewers, String platform) {
+        onEvent(player, StreamEvent.raid(raiderName, viewers, platform));
+    }
+
+    @Override
+    public void onEvent(PlayerRef player, StreamEvent event) {
+        delegate.onEvent(player, event);
+    }
+
+    @Override
+    public void onUndeliverable(UUID playerId, StreamEvent event) {
+        inbox.add(playerId, event);
+    }
+}
@@ -0,0 +1,10 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+/**
+ * Render priority lanes, drained in declaration order: alerts before chat before debug output.
+ */
+public enum Lane {
+    ALERT,
+    CHAT,
+    DEBUG
+}
@@ -0,0 +1,134 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One render lane. Producers push into a shared MPSC queue; on each tick the consumer sorts
+ * new jobs into per-streamer queues and serves streamers by deficit round-robin, so one busy
+ * channel cannot starve the others in the same lane.
+ */
+class LaneQueue {
+
+    private static final double WAIT_SMOOTHING = 0.05;
+
+    private final int quantum;
+    private final MpscQueue<RenderJob> incoming = new MpscQueue<>();
+
+    // Consumer-owned DRR state
+    private final Map<UUID, StreamerQueue> streamers = new HashMap<>();
+    private final ArrayDeque<StreamerQueue> active = new ArrayDeque<>();
+    private volatile int pending;
+
+    // Written by the consumer, read by anyone
+    private volatile long avgWaitNanos;
+    private volatile long maxWaitNanos;
+
+    LaneQueue(int quantum) {
+        this.quantum = Math.max(1, quantum);
+    }
+
+    void offer(RenderJob job) {
+        incoming.offer(job);
+    }
+
+    /**
+     * Consumer only. Serves jobs until the lane is empty or the deadline passes.
+     * @return The number of jobs served
+     */
+    int drain(long deadline, JobSink sink) {
+        transferIncoming();
+        int count = 0;
+        while (!active.isEmpty()) {
+            StreamerQueue streamer = active.peekFirst();
+            if (streamer.deficit <= 0) {
+                streamer.deficit += quantum;
+            }
+            while (streamer.deficit > 0 && !streamer.jobs.isEmpty()) {
+                if (System.nanoTime() - deadline >= 0) {
+                    pending -= count;
+                    return count;
+                }
+                RenderJob job = streamer.jobs.pollFirst();
+                streamer.deficit--;
+                recordWait(System.nanoTime() - job.getEnqueuedNanos());
+                sink.render(job);
+                count++;
+            }
+            active.pollFirst();
+            if (streamer.jobs.isEmpty()) {
+                // Idle streamers do not bank credit
+                streamer.deficit = 0;
+                streamers.remove(streamer.streamerId);
+            } else {
+                active.addLast(streamer);
+            }
+        }
+        pending -= count;
+        return count;
+    }
+
+    /**
+     * Consumer only. Empties the lane without rendering, streamer by streamer in round-robin
+     * order.
+     */
+    void drainTo(List<RenderJob> into) {
+        transferIncoming();
+        for (StreamerQueue streamer : active) {
+            into.addAll(streamer.jobs);
+        }
+        active.clear();
+        streamers.clear();
+        pending = 0;
+    }
+
+    private void transferIncoming() {
+        RenderJob job;
+        int moved = 0;
+        while ((job = incoming.poll()) != null) {
+            StreamerQueue streamer = streamers.get(job.getStreamerId());
+            if (streamer == null) {
+                streamer = new StreamerQueue(job.getStreamerId());
+                streamers.put(job.getStreamerId(), streamer);
+                active.addLast(streamer);
+            }
+            streamer.jobs.addLast(job);
+            moved++;
+        }
+        pending += moved;
+    }
+
+    private void recordWait(long waitNanos) {
+        avgWaitNanos += (long) ((waitNanos - avgWaitNanos) * WAIT_SMOOTHING);
+        if (waitNanos > maxWaitNanos) maxWaitNanos = waitNanos;
+    }
+
+    int getDepth() {
+        return incoming.size() + pending;
+    }
+
+    long getAvgWaitNanos() {
+        return avgWaitNanos;
+    }
+
+    long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    interface JobSink {
+        void render(RenderJob job);
+    }
+
+    private static final class StreamerQueue {
+        final UUID streamerId;
+        final ArrayDeque<RenderJob> jobs = new ArrayDeque<>();
+        int deficit;
+
+        StreamerQueue(UUID streamerId) {
+            this.streamerId = streamerId;
+        }
+    }
+}
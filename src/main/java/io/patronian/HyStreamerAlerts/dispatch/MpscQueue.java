@@ -0,0 +1,75 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unbounded lock-free multi-producer single-consumer queue (Vyukov's linked design).
+ * Any thread may {@link #offer}; only one thread at a time may {@link #poll} or {@link #peek}.
+ * An offer that is still linking its node can be briefly invisible to the consumer; it is
+ * picked up on the next poll.
+ */
+public class MpscQueue<T> {
+
+    private static final class Node<T> {
+        volatile Node<T> next;
+        T value;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<T>> tail;
+    private final AtomicInteger size = new AtomicInteger();
+    // Consumer-owned; always points at the last consumed (stub) node
+    private Node<T> head;
+
+    public MpscQueue() {
+        Node<T> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    public void offer(T value) {
+        if (value == null) throw new NullPointerException("value");
+        Node<T> node = new Node<>(value);
+        size.incrementAndGet();
+        Node<T> previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Consumer only.
+     * @return The oldest element, or null if none is visible
+     */
+    public T poll() {
+        Node<T> next = head.next;
+        if (next == null) return null;
+        T value = next.value;
+        next.value = null;
+        head = next;
+        size.decrementAndGet();
+        return value;
+    }
+
+    /**
+     * Consumer only.
+     * @return The oldest element without removing it, or null if none is visible
+     */
+    public T peek() {
+        Node<T> next = head.next;
+        return next == null ? null : next.value;
+    }
+
+    /**
+     * Approximate number of queued elements; safe to call from any thread.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    public boolean isEmpty() {
+        return size.get() == 0;
+    }
+}
@@ -0,0 +1,63 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.AlertHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.history.AlertHistory;
+
+import java.util.UUID;
+
+/**
+ * Records every alert in the {@link AlertHistory} before passing it on. Sits after
+ * deduplication, so duplicates are not recorded, and before coalescing, so each viewer of a
+ * burst keeps their own entry. Alerts for offline streamers are recorded as well.
+ */
+public class RecordingAlertHandler implements AlertHandler {
+
+    private final AlertHistory history;
+    private final AlertHandler delegate;
+
+    public RecordingAlertHandler(AlertHistory history, AlertHandler delegate) {
+        this.history = history;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void onFollow(PlayerRef player, String followerName, String platform) {
+        onEvent(player, StreamEvent.follow(followerName, platform));
+    }
+
+    @Override
+    public void onSubscribe(PlayerRef player, String subscriberName, int months, String platform) {
+        onEvent(player, StreamEvent.subscribe(subscriberName, months, platform));
+    }
+
+    @Override
+    public void onGiftSub(PlayerRef player, String gifterName, int amount, String platform) {
+        onEvent(player, StreamEvent.giftSub(gifterName, amount, platform));
+    }
+
+    @Override
+    public void onDonation(PlayerRef player, String donorName, String amount, String platform) {
+        onEvent(player, StreamEvent.donation(donorName, amount, platform));
+    }
+
+    @Override
+    public void onRaid(PlayerRef player, String raiderName, int viewers, String platform) {
+        onEvent(player, StreamEvent.raid(raiderName, viewers, platform));
+    }
+
+    @Override
+    public void onEvent(PlayerRef player, StreamEvent event) {
+        if (player != null) {
+            history.record(player.getUuid(), event);
+        }
+        delegate.onEvent(player, event);
+    }
+
+    @Override
+    public void onUndeliverable(UUID playerId, StreamEvent event) {
+        history.record(playerId, event);
+        delegate.onUndeliverable(playerId, event);
+    }
+}
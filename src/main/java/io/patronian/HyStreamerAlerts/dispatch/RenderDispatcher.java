@@ -0,0 +1,309 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.AlertHandler;
+import io.patronian.HyStreamerAlerts.api.ChatHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Moves all alert, chat and debug rendering onto the world thread.
+ *
+ * Provider threads (WebSocket callbacks, webhook workers) only push {@link RenderJob}s into
+ * lock-free queues, one per {@link Lane}. A small pacer thread posts one drain per tick to the
+ * world's executor, never more than one at a time; the drain itself, and the tick listeners,
+ * run on the world thread. Each drain empties the lanes in priority
+ * order (alerts, then chat, then debug) until the per-tick time budget is used up; within a
+ * lane, streamers are served by deficit round-robin. Whatever is left carries over to the
+ * next tick, so a flood of stream events is spread out instead of stalling a tick.
+ */
+public class RenderDispatcher {
+
+    private final Map<Lane, LaneQueue> lanes = new EnumMap<>(Lane.class);
+    private final List<Runnable> tickListeners = new CopyOnWriteArrayList<>();
+    private final AlertHandler alertSink;
+    private final ChatHandler chatSink;
+    private final long tickMillis;
+    private final long tickBudgetNanos;
+    private final Supplier<Executor> worldExecutor;
+    private final ScheduledExecutorService pacer;
+    private final AtomicBoolean drainPosted = new AtomicBoolean();
+    private final ReentrantLock drainLock = new ReentrantLock();
+    private volatile boolean closed;
+    private WatchIndex watchIndex;
+    private Supplier<List<RenderJob>> pendingSource = List::of;
+
+    private final LongAdder submitted = new LongAdder();
+    private volatile long rendered;
+    private volatile long ticksOverBudget;
+    private volatile long maxTickNanos;
+
+    /**
+     * @param alertSink Renders alert events; called from one drain at a time only
+     * @param chatSink Renders chat events; called from one drain at a time only
+     * @param worldExecutor The world thread to drain on, or null while no world is loaded
+     * @param tickMillis Interval between drains, normally the server tick length
+     * @param tickBudgetMicros Time a single drain may spend rendering
+     * @param fairQuantum Jobs a streamer may render per round-robin turn within a lane
+     */
+    public RenderDispatcher(AlertHandler alertSink, ChatHandler chatSink, Supplier<Executor> worldExecutor,
+                            long tickMillis, long tickBudgetMicros, int fairQuantum) {
+        this.alertSink = alertSink;
+        this.chatSink = chatSink;
+        this.worldExecutor = worldExecutor;
+        this.tickMillis = Math.max(1, tickMillis);
+        this.tickBudgetNanos = TimeUnit.MICROSECONDS.toNanos(Math.max(1, tickBudgetMicros));
+        for (Lane lane : Lane.values()) {
+            lanes.put(lane, new LaneQueue(fairQuantum));
+        }
+        this.pacer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "HyStreamerAlerts-Render");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        pacer.scheduleAtFixedRate(this::postDrain, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands one drain to the world thread, unless the previous one has not run yet.
+     */
+    private void postDrain() {
+        Executor world = worldExecutor.get();
+        if (world == null || !drainPosted.compareAndSet(false, true)) return;
+        try {
+            world.execute(() -> {
+                drainPosted.set(false);
+                drainLock.lock();
+                try {
+                    // A drain posted just before shutdown may run after it
+                    if (!closed) tick();
+                } finally {
+                    drainLock.unlock();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // World is stopping
+            drainPosted.set(false);
+        }
+    }
+
+    /**
+     * Stops posting drains, waits for one already running on the world thread, then keeps
+     * rendering on the calling (server) thread until every lane is empty or the drain time is up.
+     *
+     * @param drainMillis How long queued jobs may keep rendering
+     * @return Alert jobs that were still queued when time ran out, after those rendered but not
+     *         yet shown (see {@link #setPendingSource}); chat and debug lines are dropped
+     */
+    public List<RenderJob> shutdown(long drainMillis) {
+        if (closed) return List.of();
+        closed = true;
+        pacer.shutdownNow();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, drainMillis));
+        try {
+            if (!drainLock.tryLock(Math.max(0, drainMillis) + tickMillis + 1000, TimeUnit.MILLISECONDS)) {
+                // A render call is stuck on the world thread; the lanes cannot be read from here
+                System.out.println("[HyStreamerAlerts] Render drain did not finish");
+                return List.of();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        }
+        try {
+            return drain(deadline);
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    private List<RenderJob> drain(long deadline) {
+        while (getQueueDepth() > 0 && System.nanoTime() - deadline < 0) {
+            tick();
+        }
+        List<RenderJob> left = new ArrayList<>(pendingSource.get());
+        lanes.get(Lane.ALERT).drainTo(left);
+        for (Lane lane : Lane.values()) {
+            if (lane != Lane.ALERT) lanes.get(lane).drainTo(new ArrayList<>());
+        }
+        return left;
+    }
+
+    /**
+     * Queues an event for rendering to a player. Safe to call from any thread.
+     */
+    public void submit(PlayerRef player, StreamEvent event) {
+        if (player == null) return;
+        submit(RenderJob.event(player, player.getUuid(), event));
+    }
+
+    /**
+     * Queues an event for a streamer and everyone watching their feed. The event is decoded
+     * once and shared by all the jobs.
+     */
+    public void submitToAudience(PlayerRef streamer, StreamEvent event) {
+        if (streamer == null) return;
+        UUID streamerId = streamer.getUuid();
+        submit(RenderJob.event(streamer, streamerId, event));
+        if (watchIndex == null) return;
+
+        for (PlayerRef watcher : watchIndex.getWatchers(streamerId)) {
+            if (!watcher.isValid()) {
+                // Watcher left the server
+                watchIndex.unwatch(watcher.getUuid());
+                continue;
+            }
+            submit(RenderJob.event(watcher, streamerId, event));
+        }
+    }
+
+    /**
+     * Enables fan-out of streamer events to watchers.
+     */
+    public void setWatchIndex(WatchIndex watchIndex) {
+        this.watchIndex = watchIndex;
+    }
+
+    /**
+     * Queues a job built by the caller, e.g. one of several fanned out from the same event.
+     */
+    public void submit(RenderJob job) {
+        Lane lane = job.getEvent() == null ? Lane.DEBUG
+                : job.getEvent().getType() == StreamEventType.CHAT ? Lane.CHAT : Lane.ALERT;
+        lanes.get(lane).offer(job);
+        submitted.increment();
+    }
+
+    /**
+     * Queues a debug line on the lowest-priority lane.
+     */
+    public void submitDebug(PlayerRef player, String text) {
+        if (player == null) return;
+        submit(RenderJob.debug(player, text));
+    }
+
+    /**
+     * Queues a plain chat line, such as the offline alert digest, on the lowest-priority lane.
+     */
+    public void submitNotice(PlayerRef player, String text) {
+        submitDebug(player, text);
+    }
+
+    /**
+     * Sets where alerts that were rendered but are still waiting to be shown come from, so
+     * shutdown can hand them back with the queued jobs. Read under the drain, after the last tick.
+     */
+    public void setPendingSource(Supplier<List<RenderJob>> pendingSource) {
+        this.pendingSource = pendingSource;
+    }
+
+    /**
+     * Registers work to run on the world thread after each drain.
+     */
+    public void addTickListener(Runnable listener) {
+        tickListeners.add(listener);
+    }
+
+    void tick() {
+        long start = System.nanoTime();
+        long deadline = start + tickBudgetNanos;
+        long count = 0;
+        try {
+            for (LaneQueue lane : lanes.values()) {
+                count += lane.drain(deadline, this::render);
+            }
+            if (getQueueDepth() > 0) {
+                ticksOverBudget++;
+            }
+            for (Runnable listener : tickListeners) {
+                listener.run();
+            }
+        } catch (Exception e) {
+            // Never let an exception cancel the tick schedule
+            System.out.println("[HyStreamerAlerts] Render tick failed: " + e.getMessage());
+        }
+        rendered += count;
+        long elapsed = System.nanoTime() - start;
+        if (elapsed > maxTickNanos) maxTickNanos = elapsed;
+    }
+
+    private void render(RenderJob job) {
+        PlayerRef player = job.getPlayer();
+        if (!player.isValid()) return;
+        StreamEvent event = job.getEvent();
+        try {
+            if (event == null) {
+                player.sendMessage(Message.raw(job.getDebugText()));
+            } else if (event.getType() == StreamEventType.CHAT) {
+                chatSink.onChat(player, event);
+            } else {
+                alertSink.onFeedEvent(player, job.getStreamerId(), event);
+            }
+        } catch (Exception e) {
+            System.out.println("[HyStreamerAlerts] Failed to render " + (event == null ? "debug line" : event.getType())
+                    + ": " + e.getMessage());
+        }
+    }
+
+    public int getQueueDepth() {
+        int depth = 0;
+        for (LaneQueue lane : lanes.values()) {
+            depth += lane.getDepth();
+        }
+        return depth;
+    }
+
+    public int getLaneDepth(Lane lane) {
+        return lanes.get(lane).getDepth();
+    }
+
+    /**
+     * Smoothed time jobs in a lane waited between submit and render.
+     */
+    public long getLaneAvgWaitMicros(Lane lane) {
+        return TimeUnit.NANOSECONDS.toMicros(lanes.get(lane).getAvgWaitNanos());
+    }
+
+    public long getLaneMaxWaitMicros(Lane lane) {
+        return TimeUnit.NANOSECONDS.toMicros(lanes.get(lane).getMaxWaitNanos());
+    }
+
+    public long getSubmittedCount() {
+        return submitted.sum();
+    }
+
+    public long getRenderedCount() {
+        return rendered;
+    }
+
+    /**
+     * Number of ticks that ran out of budget and carried work over to the next tick.
+     */
+    public long getTicksOverBudget() {
+        return ticksOverBudget;
+    }
+
+    public long getMaxTickMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxTickNanos);
+    }
+}
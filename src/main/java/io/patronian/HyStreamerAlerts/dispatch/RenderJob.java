@@ -0,0 +1,62 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+
+import java.util.UUID;
+
+/**
+ * A decoded event, or a debug line, waiting to be rendered to one player.
+ */
+public final class RenderJob {
+
+    private final PlayerRef player;
+    private final UUID streamerId;
+    private final StreamEvent event;
+    private final String debugText;
+    private final long enqueuedNanos;
+
+    private RenderJob(PlayerRef player, UUID streamerId, StreamEvent event, String debugText) {
+        this.player = player;
+        this.streamerId = streamerId;
+        this.event = event;
+        this.debugText = debugText;
+        this.enqueuedNanos = System.nanoTime();
+    }
+
+    /**
+     * @param player The player to render to
+     * @param streamerId The streamer whose feed produced the event, used for fair scheduling
+     * @param event The event to render
+     */
+    public static RenderJob event(PlayerRef player, UUID streamerId, StreamEvent event) {
+        return new RenderJob(player, streamerId, event, null);
+    }
+
+    public static RenderJob debug(PlayerRef player, String text) {
+        return new RenderJob(player, player.getUuid(), null, text);
+    }
+
+    public PlayerRef getPlayer() {
+        return player;
+    }
+
+    public UUID getStreamerId() {
+        return streamerId;
+    }
+
+    /**
+     * The event to render, or null for debug lines.
+     */
+    public StreamEvent getEvent() {
+        return event;
+    }
+
+    public String getDebugText() {
+        return debugText;
+    }
+
+    public long getEnqueuedNanos() {
+        return enqueuedNanos;
+    }
+}
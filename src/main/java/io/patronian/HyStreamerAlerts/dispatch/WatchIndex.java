@@ -0,0 +1,99 @@
+package io.patronian.HyStreamerAlerts.dispatch;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streamer to watchers index for /sa watch.
+ *
+ * Watcher lists are copy-on-write arrays, so the fan-out on every event is a single map
+ * lookup with no locking; only watch and unwatch, which are rare, take the lock. A player
+ * watches at most one streamer at a time.
+ */
+public class WatchIndex {
+
+    private static final PlayerRef[] NO_WATCHERS = new PlayerRef[0];
+
+    // Lowercased username -> UUID of players who connected a stream this session
+    private final Map<String, UUID> streamersByName = new ConcurrentHashMap<>();
+    private final Map<String, String> displayNames = new ConcurrentHashMap<>();
+    private final Map<UUID, PlayerRef[]> watchersByStreamer = new ConcurrentHashMap<>();
+    private final Map<UUID, UUID> watchedByWatcher = new ConcurrentHashMap<>();
+
+    /**
+     * Makes a player's stream watchable by name.
+     */
+    public void registerStreamer(PlayerRef streamer) {
+        String name = streamer.getUsername();
+        if (name == null) return;
+        streamersByName.put(name.toLowerCase(Locale.ROOT), streamer.getUuid());
+        displayNames.put(name.toLowerCase(Locale.ROOT), name);
+    }
+
+    /**
+     * @return The streamer's UUID, or null if no player by that name has connected a stream
+     */
+    public UUID findStreamer(String username) {
+        return streamersByName.get(username.toLowerCase(Locale.ROOT));
+    }
+
+    public String getDisplayName(String username) {
+        return displayNames.getOrDefault(username.toLowerCase(Locale.ROOT), username);
+    }
+
+    /**
+     * Subscribes a player to a streamer's feed, replacing any stream they were watching.
+     */
+    public synchronized void watch(PlayerRef watcher, UUID streamerId) {
+        unwatch(watcher.getUuid());
+        PlayerRef[] current = watchersByStreamer.getOrDefault(streamerId, NO_WATCHERS);
+        PlayerRef[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = watcher;
+        watchersByStreamer.put(streamerId, updated);
+        watchedByWatcher.put(watcher.getUuid(), streamerId);
+    }
+
+    /**
+     * @return The streamer that was being watched, or null
+     */
+    public synchronized UUID unwatch(UUID watcherId) {
+        UUID streamerId = watchedByWatcher.remove(watcherId);
+        if (streamerId == null) return null;
+
+        PlayerRef[] current = watchersByStreamer.getOrDefault(streamerId, NO_WATCHERS);
+        PlayerRef[] updated = new PlayerRef[current.length];
+        int count = 0;
+        for (PlayerRef ref : current) {
+            if (!watcherId.equals(ref.getUuid())) updated[count++] = ref;
+        }
+        if (count == 0) {
+            watchersByStreamer.remove(streamerId);
+        } else {
+            watchersByStreamer.put(streamerId, Arrays.copyOf(updated, count));
+        }
+        return streamerId;
+    }
+
+    /**
+     * Current watchers of a streamer; never null. The array must not be modified.
+     */
+    public PlayerRef[] getWatchers(UUID streamerId) {
+        return watchersByStreamer.getOrDefault(streamerId, NO_WATCHERS);
+    }
+
+    /**
+     * @return The streamer a player is watching, or null
+     */
+    public UUID getWatched(UUID watcherId) {
+        return watchedByWatcher.get(watcherId);
+    }
+
+    public int getWatcherCount() {
+        return watchedByWatcher.size();
+    }
+}
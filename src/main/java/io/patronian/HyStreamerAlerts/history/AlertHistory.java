@@ -0,0 +1,178 @@
+package io.patronian.HyStreamerAlerts.history;
+
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recent alerts per player, so a streamer can look up who that raid or donation was from.
+ *
+ * Each player has a small in-memory ring of their latest alerts. Every alert is also queued
+ * for the on-disk {@link HistorySegments} log, which a background thread appends to in
+ * batches; recording never waits on the disk, and alerts that do not fit in the queue are
+ * dropped from the log (but still kept in the ring). Lookups are answered from the ring when
+ * it has enough matching entries and from the log otherwise.
+ */
+public class AlertHistory {
+
+    private static final long FLUSH_INTERVAL_MILLIS = 500;
+
+    private final int ringSize;
+    private final Map<UUID, HistoryRing> rings = new ConcurrentHashMap<>();
+    private final BlockingQueue<Pending> queue;
+    private final HistorySegments segments;
+    private final ScheduledExecutorService worker;
+    private volatile boolean logAvailable = true;
+    // Starts past anything a previous run wrote, so log sequence numbers keep increasing
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param ringSize Alerts kept in memory per player
+     * @param queueCapacity Alerts waiting to be written before new ones skip the log
+     * @param segmentBytes Size at which a log segment is closed and compressed
+     * @param segmentMillis Age at which a log segment is closed and compressed
+     * @param retentionMillis How long closed segments are kept
+     * @param maxBytes Total size of closed segments kept
+     */
+    public AlertHistory(Path dataFolder, int ringSize, int queueCapacity, long segmentBytes, long segmentMillis,
+                        long retentionMillis, long maxBytes) {
+        this.ringSize = Math.max(1, ringSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.segments = new HistorySegments(dataFolder.resolve("history"), segmentBytes, segmentMillis,
+                retentionMillis, maxBytes);
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "HyStreamerAlerts-History");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        worker.execute(() -> {
+            try {
+                segments.open();
+            } catch (IOException e) {
+                // Keep the in-memory history only
+                logAvailable = false;
+                System.out.println("[HyStreamerAlerts] Failed to open alert history: " + e.getMessage());
+            }
+        });
+        worker.scheduleWithFixedDelay(this::drain, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records an alert for a player. Safe to call from any thread; never blocks.
+     */
+    public void record(UUID playerId, StreamEvent event) {
+        HistoryEntry entry = HistoryEntry.of(event);
+        long entrySequence = rings.computeIfAbsent(playerId, id -> new HistoryRing(ringSize)).add(entry, sequence);
+        recorded.increment();
+        if (!queue.offer(new Pending(playerId, entrySequence, entry))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Looks up a player's latest alerts, newest first. Completes at once when the in-memory
+     * ring has enough; otherwise the log is read on the history thread.
+     *
+     * @param type Only this type, or null for all
+     */
+    public CompletableFuture<List<HistoryEntry>> query(UUID playerId, StreamEventType type, int limit) {
+        List<HistoryEntry> result = new ArrayList<>();
+        HistoryRing ring = rings.get(playerId);
+        long oldestInRing = ring != null ? ring.collect(type, limit, result) : Long.MAX_VALUE;
+        if (result.size() >= limit) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                drain();
+                if (!logAvailable) return result;
+                try {
+                    segments.read(playerId, type, oldestInRing, limit, result);
+                } catch (IOException e) {
+                    System.out.println("[HyStreamerAlerts] Failed to read alert history: " + e.getMessage());
+                }
+                return result;
+            }, worker);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: memory is all there is
+            return CompletableFuture.completedFuture(result);
+        }
+    }
+
+    public void shutdown() {
+        try {
+            worker.execute(() -> {
+                drain();
+                try {
+                    segments.close();
+                } catch (IOException e) {
+                    System.out.println("[HyStreamerAlerts] Failed to close alert history: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Already shut down
+        }
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    /**
+     * Alerts that were not written to the log because the write queue was full.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Writes queued alerts to the log. Runs on the history thread only.
+     */
+    private void drain() {
+        if (!logAvailable) {
+            queue.clear();
+            return;
+        }
+        try {
+            Pending pending;
+            while ((pending = queue.poll()) != null) {
+                segments.append(pending.playerId(), pending.sequence(), pending.entry());
+            }
+            segments.flush();
+        } catch (IOException e) {
+            System.out.println("[HyStreamerAlerts] Failed to write alert history: " + e.getMessage());
+        }
+    }
+
+    private record Pending(UUID playerId, long sequence, HistoryEntry entry) {
+    }
+}
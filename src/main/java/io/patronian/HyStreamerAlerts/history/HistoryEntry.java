@@ -0,0 +1,53 @@
+package io.patronian.HyStreamerAlerts.history;
+
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * One alert as it is kept in the history.
+ *
+ * @param timestamp When the event was decoded, in epoch milliseconds
+ * @param count Months, gifted subs or raid viewers, as in {@link StreamEvent#getCount()}
+ * @param text Donation amount, or null
+ */
+public record HistoryEntry(long timestamp, StreamEventType type, String user, String platform, int count,
+                           String text) {
+
+    public static HistoryEntry of(StreamEvent event) {
+        return new HistoryEntry(event.getTimestamp(), event.getType(), event.getUser(), event.getPlatform(),
+                event.getCount(), event.getText());
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(timestamp);
+        out.writeUTF(type.name());
+        out.writeUTF(user != null ? user : "");
+        out.writeUTF(platform != null ? platform : "");
+        out.writeInt(count);
+        out.writeBoolean(text != null);
+        if (text != null) out.writeUTF(text);
+    }
+
+    /**
+     * @return The entry, or null if it has a type this version does not know
+     */
+    static HistoryEntry readFrom(DataInput in) throws IOException {
+        long timestamp = in.readLong();
+        String typeName = in.readUTF();
+        String user = in.readUTF();
+        String platform = in.readUTF();
+        int count = in.readInt();
+        String text = in.readBoolean() ? in.readUTF() : null;
+        StreamEventType type;
+        try {
+            type = StreamEventType.valueOf(typeName);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return new HistoryEntry(timestamp, type, user.isEmpty() ? null : user, platform, count, text);
+    }
+}
@@ -0,0 +1,53 @@
+package io.patronian.HyStreamerAlerts.history;
+
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size ring of one player's most recent alerts.
+ */
+final class HistoryRing {
+
+    private final HistoryEntry[] entries;
+    private final long[] sequences;
+    private int next;
+    private long total;
+
+    HistoryRing(int capacity) {
+        this.entries = new HistoryEntry[capacity];
+        this.sequences = new long[capacity];
+    }
+
+    /**
+     * Numbers the entry from {@code sequence} and keeps it. Numbering under the ring's lock
+     * keeps the ring in sequence order.
+     *
+     * @return The entry's sequence number
+     */
+    synchronized long add(HistoryEntry entry, AtomicLong sequence) {
+        long entrySequence = sequence.incrementAndGet();
+        entries[next] = entry;
+        sequences[next] = entrySequence;
+        next = (next + 1) % entries.length;
+        total++;
+        return entrySequence;
+    }
+
+    /**
+     * Collects matching entries, newest first.
+     *
+     * @param type Only this type, or null for all
+     * @return The sequence number of the oldest entry still in the ring, Long.MAX_VALUE if it is
+     *         empty. Anything older has to come from disk.
+     */
+    synchronized long collect(StreamEventType type, int limit, List<HistoryEntry> into) {
+        int size = (int) Math.min(total, entries.length);
+        for (int i = 1; i <= size && into.size() < limit; i++) {
+            HistoryEntry entry = entries[Math.floorMod(next - i, entries.length)];
+            if (type == null || entry.type() == type) into.add(entry);
+        }
+        return size == 0 ? Long.MAX_VALUE : sequences[Math.floorMod(next - size, entries.length)];
+    }
+}
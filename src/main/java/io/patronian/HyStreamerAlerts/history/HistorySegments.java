@@ -0,0 +1,405 @@
+package io.patronian.HyStreamerAlerts.history;
+
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only alert log split into segments (history/segment-&lt;first timestamp&gt;.log).
+ *
+ * Records are [int length][player UUID][long sequence][{@link HistoryEntry}] in arrival order.
+ * Sequence numbers follow recording order, unlike timestamps, which are decode times from
+ * several threads. Every {@value #BLOCK_RECORDS} records start a block, and a sparse index
+ * keeps each block's lowest sequence number and offset. Once the active segment is big or old
+ * enough it is closed: each block is compressed as its own gzip member into a .log.gz, and the
+ * index is saved next to it (.idx), so a reader can decompress just the blocks it needs, newest
+ * first. Closed segments past the retention time or the size cap are deleted, oldest first. A
+ * .log left by a crash is closed on the next start.
+ *
+ * Not thread-safe: confined to the history thread.
+ */
+final class HistorySegments {
+
+    private static final int BLOCK_RECORDS = 256;
+    private static final int SEQUENCE_OFFSET = Integer.BYTES + 2 * Long.BYTES;
+    private static final int FRAME_HEADER_BYTES = SEQUENCE_OFFSET + Long.BYTES;
+    private static final String PREFIX = "segment-";
+    private static final String ACTIVE_SUFFIX = ".log";
+    private static final String CLOSED_SUFFIX = ".log.gz";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final Path folder;
+    private final long segmentBytes;
+    private final long segmentMillis;
+    private final long retentionMillis;
+    private final long maxTotalBytes;
+
+    private final ByteArrayOutputStream batch = new ByteArrayOutputStream();
+    private final DataOutputStream batchOut = new DataOutputStream(batch);
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    private FileChannel active;
+    private Path activeFile;
+    private long activeOpenedAt;
+    private long activeSize;
+    private int blockRecords;
+    private final List<long[]> activeIndex = new ArrayList<>();
+
+    /**
+     * @param segmentBytes Size at which the active segment is closed
+     * @param segmentMillis Age at which the active segment is closed
+     * @param retentionMillis Closed segments whose newest record is older than this are deleted
+     * @param maxTotalBytes Closed segments are deleted, oldest first, beyond this total size
+     */
+    HistorySegments(Path folder, long segmentBytes, long segmentMillis, long retentionMillis, long maxTotalBytes) {
+        this.folder = folder;
+        this.segmentBytes = segmentBytes;
+        this.segmentMillis = segmentMillis;
+        this.retentionMillis = retentionMillis;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    /**
+     * Closes segments left active by the previous run and applies the retention policy.
+     */
+    void open() throws IOException {
+        Files.createDirectories(folder);
+        for (Path leftover : list(ACTIVE_SUFFIX)) {
+            compress(leftover);
+        }
+        applyRetention();
+    }
+
+    /**
+     * Queues a record; it reaches the file on the next {@link #flush()}.
+     */
+    void append(UUID playerId, long sequence, HistoryEntry entry) throws IOException {
+        if (active == null) {
+            openActive(entry.timestamp());
+        }
+        if (blockRecords == 0) {
+            activeIndex.add(new long[] {sequence, activeSize + batch.size()});
+        } else {
+            long[] block = activeIndex.get(activeIndex.size() - 1);
+            block[0] = Math.min(block[0], sequence);
+        }
+        blockRecords = (blockRecords + 1) % BLOCK_RECORDS;
+
+        record.reset();
+        recordOut.writeLong(playerId.getMostSignificantBits());
+        recordOut.writeLong(playerId.getLeastSignificantBits());
+        recordOut.writeLong(sequence);
+        entry.writeTo(recordOut);
+        batchOut.writeInt(record.size());
+        record.writeTo(batchOut);
+    }
+
+    /**
+     * Writes queued records and closes the active segment when it is due.
+     */
+    void flush() throws IOException {
+        if (active == null) return;
+        if (batch.size() > 0) {
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+            batch.reset();
+            while (buffer.hasRemaining()) {
+                activeSize += active.write(buffer);
+            }
+        }
+        if (activeSize >= segmentBytes || System.currentTimeMillis() - activeOpenedAt >= segmentMillis) {
+            roll();
+        }
+    }
+
+    void close() throws IOException {
+        if (active == null) return;
+        flush();
+        if (active != null) {
+            active.force(true);
+            active.close();
+            active = null;
+        }
+    }
+
+    /**
+     * Adds a player's entries recorded before sequence number {@code before}, newest first, until
+     * {@code limit} is reached.
+     *
+     * @param type Only this type, or null for all
+     */
+    void read(UUID playerId, StreamEventType type, long before, int limit, List<HistoryEntry> into) throws IOException {
+        flush();
+        if (active != null) {
+            long[][] blocks = activeIndex.toArray(new long[0][]);
+            readSegment(activeFile, blocks, false, playerId, type, before, limit, into);
+        }
+        List<Path> closed = list(CLOSED_SUFFIX);
+        Collections.reverse(closed);
+        for (Path segment : closed) {
+            if (into.size() >= limit) return;
+            readSegment(segment, readIndex(segment), true, playerId, type, before, limit, into);
+        }
+    }
+
+    private void readSegment(Path segment, long[][] blocks, boolean compressed, UUID playerId, StreamEventType type,
+                             long before, int limit, List<HistoryEntry> into) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long end = compressed ? channel.size() : activeSize;
+            for (int i = blocks.length - 1; i >= 0 && into.size() < limit; i--) {
+                long blockEnd = i + 1 < blocks.length ? blocks[i + 1][1] : end;
+                // Every record in the block was recorded at or after its lowest sequence number
+                if (blocks[i][0] >= before) {
+                    continue;
+                }
+                byte[] bytes = readRange(channel, blocks[i][1], blockEnd);
+                InputStream raw = new ByteArrayInputStream(bytes);
+                List<HistoryEntry> matches = new ArrayList<>();
+                try (DataInputStream in = new DataInputStream(compressed ? new GZIPInputStream(raw) : raw)) {
+                    readFrames(in, playerId, type, before, matches);
+                }
+                for (int j = matches.size() - 1; j >= 0 && into.size() < limit; j--) {
+                    into.add(matches.get(j));
+                }
+            }
+        }
+    }
+
+    private static byte[] readRange(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) break;
+        }
+        return buffer.position() == buffer.capacity() ? buffer.array()
+                : Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private static void readFrames(DataInputStream in, UUID playerId, StreamEventType type, long before,
+                                   List<HistoryEntry> matches) throws IOException {
+        while (true) {
+            try {
+                in.readInt();
+                long msb = in.readLong();
+                long lsb = in.readLong();
+                long sequence = in.readLong();
+                HistoryEntry entry = HistoryEntry.readFrom(in);
+                if (entry == null || msb != playerId.getMostSignificantBits()
+                        || lsb != playerId.getLeastSignificantBits()) {
+                    continue;
+                }
+                if ((type == null || entry.type() == type) && sequence < before) {
+                    matches.add(entry);
+                }
+            } catch (EOFException e) {
+                // End of the block, or a record torn by a crash
+                return;
+            }
+        }
+    }
+
+    private void openActive(long firstTimestamp) throws IOException {
+        long name = firstTimestamp;
+        Path file;
+        do {
+            file = folder.resolve(segmentName(name++) + ACTIVE_SUFFIX);
+        } while (Files.exists(file) || Files.exists(closedFile(file)));
+        active = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        activeFile = file;
+        activeOpenedAt = System.currentTimeMillis();
+        activeSize = 0;
+        blockRecords = 0;
+        activeIndex.clear();
+    }
+
+    private void roll() throws IOException {
+        active.force(true);
+        active.close();
+        active = null;
+        compress(activeFile);
+        applyRetention();
+    }
+
+    /**
+     * Rewrites a .log segment as one gzip member per block plus its index, then deletes it.
+     */
+    private void compress(Path log) throws IOException {
+        Path closed = closedFile(log);
+        Path temp = closed.resolveSibling(closed.getFileName() + ".tmp");
+        List<long[]> index = new ArrayList<>();
+        long lastTimestamp = 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)));
+             FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            int records = 0;
+            long blockSequence = 0;
+            while (true) {
+                byte[] frame = readFrame(in);
+                if (frame == null || records == BLOCK_RECORDS) {
+                    if (records > 0) {
+                        index.add(new long[] {blockSequence, out.position()});
+                        writeCompressed(out, block);
+                        block.reset();
+                        records = 0;
+                    }
+                    if (frame == null) break;
+                }
+                long sequence = ByteBuffer.wrap(frame).getLong(SEQUENCE_OFFSET);
+                long timestamp = ByteBuffer.wrap(frame).getLong(FRAME_HEADER_BYTES);
+                blockSequence = records == 0 ? sequence : Math.min(blockSequence, sequence);
+                lastTimestamp = Math.max(lastTimestamp, timestamp);
+                block.write(frame);
+                records++;
+            }
+            out.force(true);
+        }
+
+        if (index.isEmpty()) {
+            Files.delete(temp);
+            Files.delete(log);
+            return;
+        }
+        writeIndex(indexFile(log), lastTimestamp, index);
+        try {
+            Files.move(temp, closed, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, closed, StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.delete(log);
+    }
+
+    /**
+     * Reads one framed record including its length prefix, or null at the end or a torn tail.
+     */
+    private static byte[] readFrame(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length < 3 * Long.BYTES + Long.BYTES || length > 64 * 1024) return null;
+            byte[] frame = new byte[Integer.BYTES + length];
+            ByteBuffer.wrap(frame).putInt(length);
+            in.readFully(frame, Integer.BYTES, length);
+            return frame;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static void writeCompressed(FileChannel out, ByteArrayOutputStream block) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.size() / 2 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            block.writeTo(gzip);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(compressed.toByteArray());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static void writeIndex(Path file, long lastTimestamp, List<long[]> index) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeLong(lastTimestamp);
+            out.writeInt(index.size());
+            for (long[] block : index) {
+                out.writeLong(block[0]);
+                out.writeLong(block[1]);
+            }
+        }
+    }
+
+    /**
+     * Block lowest sequence numbers and offsets of a closed segment. Without an index the whole
+     * segment is read as one block.
+     */
+    private long[][] readIndex(Path closed) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile(closed))))) {
+            in.readLong();
+            long[][] blocks = new long[in.readInt()][];
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = new long[] {in.readLong(), in.readLong()};
+            }
+            return blocks;
+        } catch (NoSuchFileException | EOFException e) {
+            return new long[][] {{Long.MIN_VALUE, 0}};
+        }
+    }
+
+    private long lastTimestamp(Path closed) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(indexFile(closed)))) {
+            return in.readLong();
+        } catch (NoSuchFileException | EOFException e) {
+            return Files.getLastModifiedTime(closed).toMillis();
+        }
+    }
+
+    private void applyRetention() throws IOException {
+        List<Path> closed = list(CLOSED_SUFFIX);
+        long total = 0;
+        for (Path segment : closed) {
+            total += Files.size(segment);
+        }
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        for (Path segment : closed) {
+            if (total <= maxTotalBytes && lastTimestamp(segment) >= cutoff) break;
+            total -= Files.size(segment);
+            Files.deleteIfExists(segment);
+            Files.deleteIfExists(indexFile(segment));
+        }
+    }
+
+    /**
+     * Segment files with the given suffix, oldest first.
+     */
+    private List<Path> list(String suffix) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, PREFIX + "*" + suffix)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        // Names embed a zero-padded timestamp, so name order is age order
+        files.sort(null);
+        return files;
+    }
+
+    private static String segmentName(long firstTimestamp) {
+        return PREFIX + String.format("%020d", firstTimestamp);
+    }
+
+    private static long firstTimestamp(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), PREFIX.length() + 20));
+    }
+
+    private static Path closedFile(Path segment) {
+        return segment.resolveSibling(segmentName(firstTimestamp(segment)) + CLOSED_SUFFIX);
+    }
+
+    private static Path indexFile(Path segment) {
+        return segment.resolveSibling(segmentName(firstTimestamp(segment)) + INDEX_SUFFIX);
+    }
+}
@@ -1,10 +1,10 @@
 package io.patronian.HyStreamerAlerts.impl;
 
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.Message;
 import io.patronian.HyStreamerAlerts.HyStreamerAlertsPlugin;
 import io.patronian.HyStreamerAlerts.api.AlertHandler;
 import io.patronian.HyStreamerAlerts.api.AlertProvider;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
 
 import javax.annotation.Nonnull;
 import java.net.URI;
@@ -130,10 +130,11 @@ public class BotrixAlertProvider implements AlertProvider {
             String prefix = "[HyStreamerAlerts-DEBUG] ";
             System.out.println(prefix + message);
             
-            if (HyStreamerAlertsPlugin.getInstance().isDebugMode()) {
+            HyStreamerAlertsPlugin plugin = HyStreamerAlertsPlugin.getInstance();
+            if (plugin.isDebugMode() && plugin.getRenderDispatcher() != null) {
                  PlayerRef player = playerRefSupplier.get();
                  if (player != null && player.isValid()) {
-                     player.sendMessage(Message.raw("\u00A78[Debug][BotrixAlert] \u00A77" + message));
+                     plugin.getRenderDispatcher().submitDebug(player, "\u00A78[Debug][BotrixAlert] \u00A77" + message);
                  }
             }
         }
@@ -220,34 +221,42 @@ public class BotrixAlertProvider implements AlertProvider {
 
             if (content == null || nickName == null) return;
 
-            PlayerRef player = playerRefSupplier.get();
-            System.out.println(player);
-            if (player == null) return;
             System.out.println(content);
+            StreamEvent event;
             switch (content) {
                 case "!follow":
-                    alertHandler.onFollow(player, nickName, platform);
+                    event = StreamEvent.follow(nickName, platform);
                     break;
                 case "!sub":
                     int amount = 1;
                     try { amount = Integer.parseInt(amountStr); } catch (Exception ignored) {}
-                    alertHandler.onSubscribe(player, nickName, amount, platform);
+                    event = StreamEvent.subscribe(nickName, amount, platform);
                     break;
                 case "!gift":
                     int giftAmount = 1;
                     try { giftAmount = Integer.parseInt(amountStr); } catch (Exception ignored) {}
-                    alertHandler.onGiftSub(player, nickName, giftAmount, platform);
+                    event = StreamEvent.giftSub(nickName, giftAmount, platform);
                     break;
                 case "!donation":
                 case "!tip":
-                    alertHandler.onDonation(player, nickName, amountStr, platform);
+                    event = StreamEvent.donation(nickName, amountStr, platform);
                     break;
                 case "!raid":
                     int viewers = 0;
                     try { viewers = Integer.parseInt(amountStr); } catch (Exception ignored) {}
-                    alertHandler.onRaid(player, nickName, viewers, platform);
+                    event = StreamEvent.raid(nickName, viewers, platform);
                     break;
+                default:
+                    return;
+            }
+
+            PlayerRef player = playerRefSupplier.get();
+            if (player == null || !player.isValid()) {
+                // Streamer is offline: keep the alert for their next join
+                alertHandler.onUndeliverable(playerId, event);
+                return;
             }
+            alertHandler.onEvent(player, event);
         }
     }
 }
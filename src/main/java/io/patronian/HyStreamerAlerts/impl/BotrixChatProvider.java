@@ -1,10 +1,10 @@
 package io.patronian.HyStreamerAlerts.impl;
 
 import com.hypixel.hytale.server.core.universe.PlayerRef;
-import com.hypixel.hytale.server.core.Message;
 import io.patronian.HyStreamerAlerts.HyStreamerAlertsPlugin;
 import io.patronian.HyStreamerAlerts.api.ChatHandler;
 import io.patronian.HyStreamerAlerts.api.ChatProvider;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
 
 import javax.annotation.Nonnull;
 import java.net.URI;
@@ -138,10 +138,11 @@ public class BotrixChatProvider implements ChatProvider {
             String prefix = "[HyStreamerAlerts-DEBUG] ";
             System.out.println(prefix + message);
             
-            if (HyStreamerAlertsPlugin.getInstance().isDebugMode()) {
+            HyStreamerAlertsPlugin plugin = HyStreamerAlertsPlugin.getInstance();
+            if (plugin.isDebugMode() && plugin.getRenderDispatcher() != null) {
                  PlayerRef player = playerRefSupplier.get();
                  if (player != null && player.isValid()) {
-                     player.sendMessage(Message.raw("\u00A78[Debug][BotrixChat] \u00A77" + message));
+                     plugin.getRenderDispatcher().submitDebug(player, "\u00A78[Debug][BotrixChat] \u00A77" + message);
                  }
             }
         }
@@ -263,11 +264,28 @@ public class BotrixChatProvider implements ChatProvider {
 
                 PlayerRef player = playerRefSupplier.get();
                 if (content != null && player != null) {
-                    chatHandler.onMessage(player, sender, content, "Botrix");
+                    chatHandler.onChat(player, StreamEvent.chat(sender, content, "Botrix", parseBadges(unescapedData)));
                 }
             } catch (Exception e) {
                 // Log failed parse
             }
         }
+
+        /**
+         * Reads sender badges from the Kick identity block, e.g. "badges":[{"type":"moderator",...}].
+         */
+        private int parseBadges(String data) {
+            int badgesIndex = data.indexOf("\"badges\"");
+            if (badgesIndex == -1) return 0;
+            int end = data.indexOf(']', badgesIndex);
+            String badges = end == -1 ? data.substring(badgesIndex) : data.substring(badgesIndex, end);
+
+            int flags = 0;
+            if (badges.contains("\"broadcaster\"")) flags |= StreamEvent.BADGE_BROADCASTER;
+            if (badges.contains("\"moderator\"")) flags |= StreamEvent.BADGE_MODERATOR;
+            if (badges.contains("\"vip\"")) flags |= StreamEvent.BADGE_VIP;
+            if (badges.contains("\"subscriber\"") || badges.contains("\"founder\"")) flags |= StreamEvent.BADGE_SUBSCRIBER;
+            return flags;
+        }
     }
 }
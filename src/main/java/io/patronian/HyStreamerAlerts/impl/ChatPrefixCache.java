@@ -0,0 +1,62 @@
+package io.patronian.HyStreamerAlerts.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU of rendered chat prefixes ("[Stream] [Mod] Name: ") keyed by platform, sender
+ * and badges. Busy rooms are mostly the same regulars, so most lines skip rendering their
+ * prefix. Not thread-safe: used from the render thread only.
+ */
+public class ChatPrefixCache {
+
+    private final Map<Key, String> prefixes;
+    private long hits;
+    private long misses;
+
+    public ChatPrefixCache(int capacity) {
+        int maxEntries = Math.max(1, capacity);
+        this.prefixes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached prefix, rendering and caching it on a miss.
+     */
+    public String get(String platform, String sender, int badges, Supplier<String> renderer) {
+        Key key = new Key(platform, sender, badges);
+        String prefix = prefixes.get(key);
+        if (prefix != null) {
+            hits++;
+            return prefix;
+        }
+        misses++;
+        prefix = renderer.get();
+        prefixes.put(key, prefix);
+        return prefix;
+    }
+
+    public void clear() {
+        prefixes.clear();
+    }
+
+    public int size() {
+        return prefixes.size();
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    private record Key(String platform, String sender, int badges) {
+    }
+}
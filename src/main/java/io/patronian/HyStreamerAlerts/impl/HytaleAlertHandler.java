@@ -4,58 +4,152 @@ import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.util.EventTitleUtil;
 import io.patronian.HyStreamerAlerts.api.AlertHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+import io.patronian.HyStreamerAlerts.template.TemplateKey;
+import io.patronian.HyStreamerAlerts.template.Templates;
+
+import java.util.List;
+import java.util.UUID;
 
 public class HytaleAlertHandler implements AlertHandler {
 
+    private final TitleSequencer titleSequencer;
+    private final Templates templates;
+    // The feed event being rendered, so queued titles can be handed back at shutdown
+    private UUID feedStreamerId;
+    private StreamEvent feedEvent;
+
+    public HytaleAlertHandler() {
+        this(null);
+    }
+
+    /**
+     * @param titleSequencer Paces titles per player; null shows every title immediately
+     */
+    public HytaleAlertHandler(TitleSequencer titleSequencer) {
+        this(titleSequencer, Templates.defaults());
+    }
+
+    /**
+     * @param titleSequencer Paces titles per player; null shows every title immediately
+     * @param templates Alert texts; only used from the render thread
+     */
+    public HytaleAlertHandler(TitleSequencer titleSequencer, Templates templates) {
+        this.titleSequencer = titleSequencer;
+        this.templates = templates;
+    }
+
     @Override
     public void onFollow(PlayerRef player, String followerName, String platform) {
-        showTitle(player, "New Follower!", followerName + " just followed!");
+        showTitle(player, StreamEventType.FOLLOW, TemplateKey.FOLLOW_TITLE,
+                templates.text(TemplateKey.FOLLOW_SUBTITLE, followerName));
     }
 
     @Override
     public void onSubscribe(PlayerRef player, String subscriberName, int months, String platform) {
         String subtitle = months > 1 
-                ? subscriberName + " subscribed for " + months + " months!"
-                : subscriberName + " just subscribed!";
+                ? templates.text(TemplateKey.SUBSCRIBE_MONTHS_SUBTITLE, subscriberName, Integer.toString(months))
+                : templates.text(TemplateKey.SUBSCRIBE_SUBTITLE, subscriberName);
         
-        showTitle(player, "New Subscriber!", subtitle);
+        showTitle(player, StreamEventType.SUBSCRIBE, TemplateKey.SUBSCRIBE_TITLE, subtitle);
     }
 
     @Override
     public void onGiftSub(PlayerRef player, String gifterName, int amount, String platform) {
         String subtitle = amount > 1
-                ? gifterName + " gifted " + amount + " subs!"
-                : gifterName + " gifted a sub!";
+                ? templates.text(TemplateKey.GIFT_MANY_SUBTITLE, gifterName, Integer.toString(amount))
+                : templates.text(TemplateKey.GIFT_SUBTITLE, gifterName);
         
-        showTitle(player, "Gift Subs!", subtitle);
+        showTitle(player, StreamEventType.GIFT_SUB, TemplateKey.GIFT_TITLE, subtitle);
     }
 
     @Override
     public void onDonation(PlayerRef player, String donorName, String amount, String platform) {
         String subtitle = amount != null 
-                ? donorName + " donated " + amount + "!"
-                : donorName + " sent a donation!";
+                ? templates.text(TemplateKey.DONATION_AMOUNT_SUBTITLE, donorName, amount)
+                : templates.text(TemplateKey.DONATION_SUBTITLE, donorName);
         
-        showTitle(player, "Donation!", subtitle);
+        showTitle(player, StreamEventType.DONATION, TemplateKey.DONATION_TITLE, subtitle);
     }
 
     @Override
     public void onRaid(PlayerRef player, String raiderName, int viewers, String platform) {
         String subtitle = viewers > 0
-                ? raiderName + " is raiding with " + viewers + " viewers!"
-                : raiderName + " is raiding!";
+                ? templates.text(TemplateKey.RAID_VIEWERS_SUBTITLE, raiderName, Integer.toString(viewers))
+                : templates.text(TemplateKey.RAID_SUBTITLE, raiderName);
         
-        showTitle(player, "Incoming Raid!", subtitle);
+        showTitle(player, StreamEventType.RAID, TemplateKey.RAID_TITLE, subtitle);
+    }
+    
+    @Override
+    public void onFeedEvent(PlayerRef player, UUID streamerId, StreamEvent event) {
+        feedStreamerId = streamerId;
+        feedEvent = event;
+        try {
+            onEvent(player, event);
+        } finally {
+            feedStreamerId = null;
+            feedEvent = null;
+        }
+    }
+
+    @Override
+    public void onEvent(PlayerRef player, StreamEvent event) {
+        if (!event.isBurst()) {
+            AlertHandler.super.onEvent(player, event);
+            return;
+        }
+
+        switch (event.getType()) {
+            case FOLLOW:
+                showTitle(player, StreamEventType.FOLLOW, TemplateKey.FOLLOW_BURST_TITLE,
+                        templates.text(TemplateKey.FOLLOW_BURST_SUBTITLE,
+                                Integer.toString(event.getMergedCount()), describeUsers(event)));
+                break;
+            case SUBSCRIBE:
+                showTitle(player, StreamEventType.SUBSCRIBE, TemplateKey.SUBSCRIBE_BURST_TITLE,
+                        templates.text(TemplateKey.SUBSCRIBE_BURST_SUBTITLE,
+                                Integer.toString(event.getMergedCount()), describeUsers(event)));
+                break;
+            case GIFT_SUB:
+                showTitle(player, StreamEventType.GIFT_SUB, TemplateKey.GIFT_TITLE,
+                        templates.text(TemplateKey.GIFT_TOTAL_SUBTITLE,
+                                event.getUser(), Integer.toString(event.getCount())));
+                break;
+            default:
+                AlertHandler.super.onEvent(player, event);
+                break;
+        }
+    }
+
+    /**
+     * "A, B, C and 9 more" for a burst.
+     */
+    private static String describeUsers(StreamEvent burst) {
+        List<String> names = burst.getSampleUsers();
+        String listed = String.join(", ", names);
+        int rest = burst.getMergedCount() - names.size();
+        return rest > 0 ? listed + " and " + rest + " more" : listed;
     }
     
-    private void showTitle(PlayerRef player, String title, String subtitle) {
+    private void showTitle(PlayerRef player, StreamEventType type, TemplateKey titleKey, String subtitle) {
+        // Title templates take no placeholders, so this is the cached text and Message
+        Message title = templates.message(titleKey);
+
+        String titleText = templates.text(titleKey);
 
-        // Show chat message as backup
-        player.sendMessage(Message.raw("\u00A76[Alert] \u00A7e" + title + " - " + subtitle));
+        // Chat message as backup, sent when the title actually shows
+        if (titleSequencer != null) {
+            titleSequencer.submit(player, type, title, subtitle,
+                    shown -> templates.message(TemplateKey.ALERT_LINE, titleText, shown), feedStreamerId, feedEvent);
+            return;
+        }
 
+        player.sendMessage(templates.message(TemplateKey.ALERT_LINE, titleText, subtitle));
         EventTitleUtil.showEventTitleToPlayer(
                 player,
-                Message.raw(title),
+                title,
                 Message.raw(subtitle),
                 true
         );
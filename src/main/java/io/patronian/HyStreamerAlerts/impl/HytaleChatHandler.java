@@ -3,15 +3,172 @@ package io.patronian.HyStreamerAlerts.impl;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import io.patronian.HyStreamerAlerts.api.ChatHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.template.MessageTemplate;
+import io.patronian.HyStreamerAlerts.template.TemplateKey;
+import io.patronian.HyStreamerAlerts.template.Templates;
 
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Renders stream chat to players.
+ *
+ * With batching enabled, lines for the same player are gathered during a render tick and
+ * sent as one multi-line message by {@link #flush()}, which must then run at the end of
+ * every tick. Not thread-safe: everything runs on the render thread.
+ */
 public class HytaleChatHandler implements ChatHandler {
 
+    private final Templates templates;
+    private final ChatPrefixCache prefixCache;
+    private final int maxBatchLines;
+    private final StringBuilder line = new StringBuilder(256);
+    private final Map<UUID, ChatBatch> batches = new HashMap<>();
+
+    private long linesRendered;
+    private long messagesSent;
+
+    public HytaleChatHandler() {
+        this(Templates.defaults(), new ChatPrefixCache(512), 1);
+    }
+
+    /**
+     * @param templates Chat formats
+     * @param prefixCache Rendered sender prefixes
+     * @param maxBatchLines Lines joined into one message per player per tick; 1 sends every line at once
+     */
+    public HytaleChatHandler(Templates templates, ChatPrefixCache prefixCache, int maxBatchLines) {
+        this.templates = templates;
+        this.prefixCache = prefixCache;
+        this.maxBatchLines = Math.max(1, maxBatchLines);
+    }
+
     @Override
     public void onMessage(PlayerRef player, String sender, String message, String platform) {
-        // Format: [Stream] Username: Message
-        // Using Hytale color codes: \u00A7
-        // b = aqua, f = white, 7 = gray
-        String formatted = String.format("\u00A7b[Stream] \u00A77%s: \u00A7f%s", sender, message);
-        player.sendMessage(Message.raw(formatted));
+        sendLine(player, sender, message, platform, 0);
+    }
+
+    @Override
+    public void onChat(PlayerRef player, StreamEvent event) {
+        if (event.isSkipMarker()) {
+            send(player, templates.text(TemplateKey.CHAT_SKIPPED, Integer.toString(event.getCount())));
+            return;
+        }
+        sendLine(player, event.getUser(), event.getText(), event.getPlatform(), event.getBadges());
+    }
+
+    private void sendLine(PlayerRef player, String sender, String message, String platform, int badges) {
+        // Default format: [Stream] [Badges] Username: Message (aqua, gray, white)
+        MessageTemplate template = templates.get(TemplateKey.CHAT_LINE);
+        line.setLength(0);
+        if (template.endsWithSlot(1)) {
+            // Everything before {message} depends only on the sender, so it is cached
+            String prefix = prefixCache.get(platform, sender, badges, () -> renderPrefix(template, sender, badges));
+            line.append(prefix).append(message).append(template.getSuffix());
+        } else {
+            template.appendTo(line, sanitize(sender), message, renderBadges(badges));
+        }
+        send(player, line);
+    }
+
+    private void send(PlayerRef player, CharSequence text) {
+        linesRendered++;
+        if (maxBatchLines == 1) {
+            player.sendMessage(Message.raw(text.toString()));
+            messagesSent++;
+            return;
+        }
+
+        ChatBatch batch = batches.computeIfAbsent(player.getUuid(), id -> new ChatBatch());
+        batch.player = player;
+        if (batch.lines > 0) batch.text.append('\n');
+        batch.text.append(text);
+        if (++batch.lines >= maxBatchLines) {
+            sendBatch(batch);
+        }
+    }
+
+    /**
+     * Sends every player's gathered lines. Call once at the end of each render tick.
+     */
+    public void flush() {
+        Iterator<ChatBatch> it = batches.values().iterator();
+        while (it.hasNext()) {
+            ChatBatch batch = it.next();
+            if (batch.lines == 0) {
+                // Nothing this tick: let go of players who stopped receiving chat
+                it.remove();
+                continue;
+            }
+            sendBatch(batch);
+        }
+    }
+
+    private void sendBatch(ChatBatch batch) {
+        if (batch.player.isValid()) {
+            batch.player.sendMessage(Message.raw(batch.text.toString()));
+            messagesSent++;
+        }
+        batch.text.setLength(0);
+        batch.lines = 0;
+    }
+
+    public long getLinesRendered() {
+        return linesRendered;
+    }
+
+    /**
+     * Messages actually sent; lower than the line count by the batching factor.
+     */
+    public long getMessagesSent() {
+        return messagesSent;
+    }
+
+    private String renderPrefix(MessageTemplate template, String sender, int badges) {
+        StringBuilder prefix = new StringBuilder(64);
+        template.appendBeforeLast(prefix, sanitize(sender), null, renderBadges(badges));
+        return prefix.toString();
+    }
+
+    private String renderBadges(int badges) {
+        if (badges == 0) return "";
+        StringBuilder out = new StringBuilder();
+        appendBadge(out, badges, StreamEvent.BADGE_BROADCASTER, TemplateKey.BADGE_BROADCASTER);
+        appendBadge(out, badges, StreamEvent.BADGE_MODERATOR, TemplateKey.BADGE_MODERATOR);
+        appendBadge(out, badges, StreamEvent.BADGE_VIP, TemplateKey.BADGE_VIP);
+        appendBadge(out, badges, StreamEvent.BADGE_SUBSCRIBER, TemplateKey.BADGE_SUBSCRIBER);
+        return out.toString();
+    }
+
+    private void appendBadge(StringBuilder out, int badges, int badge, TemplateKey key) {
+        if ((badges & badge) != 0) {
+            out.append(templates.text(key)).append(' ');
+        }
+    }
+
+    /**
+     * Strips color codes and control characters so a display name can't restyle the line.
+     */
+    private static String sanitize(String sender) {
+        if (sender == null) return "?";
+        StringBuilder out = new StringBuilder(sender.length());
+        for (int i = 0; i < sender.length(); i++) {
+            char c = sender.charAt(i);
+            if (c == '\u00A7') {
+                i++;
+            } else if (!Character.isISOControl(c)) {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static final class ChatBatch {
+        final StringBuilder text = new StringBuilder(512);
+        PlayerRef player;
+        int lines;
     }
 }
@@ -1,6 +1,12 @@
 package io.patronian.HyStreamerAlerts.impl;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
 public class JsonUtils {
+    private static final int READ_BUFFER_SIZE = 8192;
+
     public static String extractJsonValue(String json, String key) {
         String searchKey = "\"" + key + "\"";
         int keyIndex = json.indexOf(searchKey);
@@ -44,4 +50,134 @@ public class JsonUtils {
             return json.substring(valueStart, valueEnd);
         }
     }
+
+    /**
+     * Reads a non-negative integer value, quoted or not, without allocating.
+     *
+     * @param json The JSON text
+     * @param key The key to look up
+     * @return The value, or -1 if the key is missing or its value is not a non-negative integer
+     */
+    public static long extractJsonLong(String json, String key) {
+        int from = 0;
+        int keyIndex;
+        while ((keyIndex = json.indexOf(key, from)) != -1) {
+            int keyEnd = keyIndex + key.length();
+            if (keyIndex > 0 && keyEnd < json.length()
+                    && json.charAt(keyIndex - 1) == '"' && json.charAt(keyEnd) == '"') {
+                break;
+            }
+            from = keyEnd;
+        }
+        if (keyIndex == -1) return -1;
+
+        int i = json.indexOf(':', keyIndex + key.length() + 1);
+        if (i == -1) return -1;
+        i++;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) i++;
+        boolean quoted = i < json.length() && json.charAt(i) == '"';
+        if (quoted) i++;
+
+        long value = 0;
+        int digits = 0;
+        for (; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c < '0' || c > '9') break;
+            if (value > (Long.MAX_VALUE - (c - '0')) / 10) return -1;
+            value = value * 10 + (c - '0');
+            digits++;
+        }
+        if (digits == 0) return -1;
+        if (quoted && (i >= json.length() || json.charAt(i) != '"')) return -1;
+        return value;
+    }
+
+    /**
+     * Streams top-level JSON objects out of a reader and hands each one to the consumer.
+     * Accepts either a JSON array of objects or newline-delimited JSON; only brackets, commas
+     * and whitespace may appear between objects. Only one object is held in memory at a time.
+     *
+     * @param reader The source to read from
+     * @param maxObjectChars Longest object accepted
+     * @param maxObjects Most objects accepted
+     * @param consumer Receives the raw text of each object
+     * @return The number of objects read
+     * @throws LimitExceededException If an object or the object count is over its limit;
+     *                                objects before it have already been handed on
+     * @throws MalformedJsonException If something other than an object is found, or the input
+     *                                ends inside an object
+     */
+    public static int forEachObject(Reader reader, int maxObjectChars, int maxObjects,
+                                    Consumer<String> consumer) throws IOException {
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        StringBuilder current = new StringBuilder();
+        int depth = 0;
+        int count = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = buffer[i];
+                if (depth == 0) {
+                    if (c == '{') {
+                        if (count >= maxObjects) {
+                            throw new LimitExceededException("More than " + maxObjects + " objects");
+                        }
+                        depth = 1;
+                        current.append(c);
+                    } else if (c != '[' && c != ']' && c != ',' && !Character.isWhitespace(c)) {
+                        throw new MalformedJsonException("Expected an object but found '" + c + "'");
+                    }
+                    continue;
+                }
+                if (current.length() >= maxObjectChars) {
+                    throw new LimitExceededException("Object longer than " + maxObjectChars + " characters");
+                }
+                current.append(c);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                    }
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                    if (depth == 0) {
+                        consumer.accept(current.toString());
+                        current.setLength(0);
+                        count++;
+                    }
+                }
+            }
+        }
+        if (depth > 0) {
+            throw new MalformedJsonException("Input ends inside an object");
+        }
+        return count;
+    }
+
+    /**
+     * Input is over a size or count limit.
+     */
+    public static class LimitExceededException extends IOException {
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Input is not the JSON shape that was expected.
+     */
+    public static class MalformedJsonException extends IOException {
+        public MalformedJsonException(String message) {
+            super(message);
+        }
+    }
 }
@@ -6,37 +6,124 @@ import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import io.patronian.HyStreamerAlerts.api.AlertHandler;
 import io.patronian.HyStreamerAlerts.api.AlertProvider;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
 
 import javax.annotation.Nonnull;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 public class KickAlertProvider implements AlertProvider {
+
+    private static final WebhookEndpoint.Response TOO_MANY_REQUESTS =
+            WebhookEndpoint.Response.text(429, "Too Many Requests");
+    private static final WebhookEndpoint.Response PAYLOAD_TOO_LARGE =
+            WebhookEndpoint.Response.text(413, "Payload Too Large");
     
     private HttpServer server;
-    private final Map<UUID, Supplier<PlayerRef>> playerRefSuppliers = new HashMap<>();
+    // Hot path: broadcaster ID from the payload -> session, one probe with no boxing
+    private final LongKeyedMap<KickSession> sessions = new LongKeyedMap<>();
+    // Command path: player -> broadcaster ID, for disconnect and status
+    private final Map<UUID, Long> playerBroadcasterIds = new ConcurrentHashMap<>();
     private AlertHandler alertHandler;
     private int port = 8080;
+    private boolean tcpEnabled = true;
+    private Path unixSocketPath;
+    private UnixSocketWebhookServer unixSocketServer;
+    private final TokenBucketRateLimiter sourceLimiter = new TokenBucketRateLimiter(20, 40);
+    private final TokenBucketRateLimiter streamerLimiter = new TokenBucketRateLimiter(10, 30);
+    private long maxBodyBytes = 1024 * 1024;
+    private int maxBatchItems = 1000;
+    private int maxItemChars = 16 * 1024;
 
     public void setPort(int port) {
         this.port = port;
     }
 
+    /**
+     * Sets the request limit applied to each remote address.
+     * @param permitsPerSecond Sustained requests per second; zero or less disables the limit
+     * @param burst Requests allowed at once after an idle period
+     */
+    public void setSourceRateLimit(double permitsPerSecond, int burst) {
+        sourceLimiter.setLimit(permitsPerSecond, burst);
+    }
+
+    /**
+     * Sets the event limit applied to each streamer ID found in webhook payloads.
+     * @param permitsPerSecond Sustained events per second; zero or less disables the limit
+     * @param burst Events allowed at once after an idle period
+     */
+    public void setStreamerRateLimit(double permitsPerSecond, int burst) {
+        streamerLimiter.setLimit(permitsPerSecond, burst);
+    }
+
+    /**
+     * Sets the request size limits; requests over them get 413 Payload Too Large.
+     * @param maxBodyBytes Longest request body, for both endpoints
+     * @param maxBatchItems Most events in one batch request
+     * @param maxItemChars Longest single event in a batch request
+     */
+    public void setRequestLimits(long maxBodyBytes, int maxBatchItems, int maxItemChars) {
+        this.maxBodyBytes = Math.max(1, maxBodyBytes);
+        this.maxBatchItems = Math.max(1, maxBatchItems);
+        this.maxItemChars = Math.max(1, maxItemChars);
+    }
+
+    public long getSourceRejections() {
+        return sourceLimiter.getRejectedCount();
+    }
+
+    public long getStreamerRejections() {
+        return streamerLimiter.getRejectedCount();
+    }
+
+    /**
+     * Sets whether the TCP listener is started. Disable it when only the Unix socket is used.
+     */
+    public void setTcpEnabled(boolean tcpEnabled) {
+        this.tcpEnabled = tcpEnabled;
+    }
+
+    /**
+     * Sets a Unix domain socket path to listen on, e.g. for a local reverse proxy.
+     * @param unixSocketPath The socket file path, or null to not listen on a socket
+     */
+    public void setUnixSocketPath(Path unixSocketPath) {
+        this.unixSocketPath = unixSocketPath;
+    }
+
     public void startServer() throws IOException {
-        server = HttpServer.create(new InetSocketAddress(port), 0);
-        server.createContext("/webhook/kick", new KickWebhookHandler());
-        server.setExecutor(Executors.newFixedThreadPool(4));
-        server.start();
-        System.out.println("[HyStreamerAlerts] Kick webhook server started on port " + port);
+        Map<String, WebhookEndpoint> routes = new LinkedHashMap<>();
+        routes.put("/webhook/kick", this::handleSingle);
+        routes.put("/webhook/kick/batch", this::handleBatch);
+
+        if (tcpEnabled) {
+            server = HttpServer.create(new InetSocketAddress(port), 0);
+            routes.forEach((path, endpoint) -> server.createContext(path, new ExchangeHandler(endpoint)));
+            server.setExecutor(Executors.newFixedThreadPool(4));
+            server.start();
+            System.out.println("[HyStreamerAlerts] Kick webhook server started on port " + port);
+        }
+
+        if (unixSocketPath != null) {
+            unixSocketServer = new UnixSocketWebhookServer(unixSocketPath, routes);
+            unixSocketServer.start();
+            System.out.println("[HyStreamerAlerts] Kick webhook server listening on " + unixSocketPath);
+        }
     }
 
     @Override
@@ -44,71 +131,66 @@ public class KickAlertProvider implements AlertProvider {
         this.alertHandler = handler;
     }
 
+    /**
+     * Registers a player to receive webhooks for a Kick broadcaster.
+     * @param playerId The Hytale player UUID
+     * @param connectionId The numeric Kick broadcaster (user) ID
+     * @param playerRefSupplier Supplier for the player reference
+     */
     @Override
     public void connect(@Nonnull UUID playerId, @Nonnull String connectionId, @Nonnull Supplier<PlayerRef> playerRefSupplier) {
-        // ConnectionId not really used for Kick webhook registration as it pushes to us, 
-        // but we might need to map streamer ID from payload to player.
-        // Assuming connectionId IS the streamer ID or we map by UUID if logic permits.
-        // Original code didn't use connectionId for Kick, it just registered the player.
-        // But wait, the webhook payload has "streamer_id".
-        // Let's assume for now we map just by player ID if possible, or we need to know the streamer ID.
-        // The original code used `registerPlayer` with just UUID and Supplier.
-        // But the processing logic did: `UUID.fromString(streamerIdStr);` and looked up the supplier.
-        // So the Map key MUST be the streamer ID (which is a UUID).
-        
-        // So `playerId` in the method signature is the Hytale Player UUID.
-        // `connectionId` should be the Kick Streamer UUID (as string).
-        
-        try {
-            UUID streamerId = UUID.fromString(connectionId);
-             // We map the STREAMER ID to the supplier.
-             // We store it.
-             // Wait, the original code used `playerId` as key?
-             /*
-                public void registerPlayer(UUID playerId, Supplier<PlayerRef> playerRefSupplier) {
-                    playerRefSuppliers.put(playerId, playerRefSupplier);
-                }
-                ...
-                UUID streamerId = UUID.fromString(streamerIdStr);
-                Supplier<PlayerRef> playerRefSupplier = playerRefSuppliers.get(streamerId);
-             */
-             // So if the map logic from original code is correct, the Hytale Player UUID MUST matched the Streamer ID?
-             // Or the user registers with their Streamer ID.
-             // Ideally we map StreamerID -> HytalePlayer.
-             
-             playerRefSuppliers.put(streamerId, playerRefSupplier);
-             
-        } catch (IllegalArgumentException e) {
-            System.err.println("Invalid Kick Streamer UUID provided: " + connectionId);
+        long broadcasterId = parseBroadcasterId(connectionId);
+        if (broadcasterId <= 0) {
+            System.err.println("Invalid Kick broadcaster ID provided: " + connectionId);
+            return;
+        }
+
+        disconnect(playerId);
+        KickSession previous = sessions.put(broadcasterId,
+                new KickSession(playerId, playerRefSupplier, streamerLimiter.newBucket()));
+        if (previous != null) {
+            playerBroadcasterIds.remove(previous.playerId, broadcasterId);
         }
+        playerBroadcasterIds.put(playerId, broadcasterId);
     }
 
     @Override
     public void disconnect(@Nonnull UUID playerId) {
-        // This is tricky if we keyed by streamer ID.
-        // Requires defined bi-directional map or iteration.
-        // For simplicity, we iterate.
-        playerRefSuppliers.values().removeIf(sup -> {
-            PlayerRef ref = sup.get();
-            return ref != null && ref.getUuid().equals(playerId);
-        });
+        Long broadcasterId = playerBroadcasterIds.remove(playerId);
+        if (broadcasterId != null) {
+            sessions.remove(broadcasterId);
+        }
     }
 
     @Override
     public boolean isConnected(@Nonnull UUID playerId) {
-        // Check if map has value for this player
-        return playerRefSuppliers.values().stream().anyMatch(sup -> {
-             PlayerRef ref = sup.get();
-             return ref != null && ref.getUuid().equals(playerId);
-        });
+        return playerBroadcasterIds.containsKey(playerId);
+    }
+
+    /**
+     * Parses a Kick broadcaster ID.
+     * @return The ID, or -1 if the text is not a positive integer
+     */
+    public static long parseBroadcasterId(String text) {
+        try {
+            long id = Long.parseLong(text.trim());
+            return id > 0 ? id : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     @Override
     public void shutdown() {
         if (server != null) {
-            server.stop(0);
+            // Let webhooks already being handled finish
+            server.stop(1);
         }
-        playerRefSuppliers.clear();
+        if (unixSocketServer != null) {
+            unixSocketServer.stop();
+        }
+        sessions.clear();
+        playerBroadcasterIds.clear();
     }
 
     @Override
@@ -116,71 +198,186 @@ public class KickAlertProvider implements AlertProvider {
         return "Kick";
     }
 
-    private class KickWebhookHandler implements HttpHandler {
+    /**
+     * Adapts a {@link WebhookEndpoint} to the JDK HTTP server.
+     */
+    private class ExchangeHandler implements HttpHandler {
+        private final WebhookEndpoint endpoint;
+
+        ExchangeHandler(WebhookEndpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
         @Override
         public void handle(HttpExchange exchange) throws IOException {
-            if (!"POST".equals(exchange.getRequestMethod())) {
-                sendResponse(exchange, 405, "Method Not Allowed");
-                return;
+            String source = exchange.getRemoteAddress().getAddress().getHostAddress();
+            WebhookEndpoint.Response response;
+            try (InputStream body = exchange.getRequestBody()) {
+                response = endpoint.handle(exchange.getRequestMethod(), source, body);
             }
-            
-            String requestBody;
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sb.append(line);
-                }
-                requestBody = sb.toString();
+
+            byte[] responseBytes = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", response.contentType());
+            if (response.status() == 429) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
             }
-            
-            processWebhook(requestBody);
-            sendResponse(exchange, 200, "OK");
-        }
-        
-        private void sendResponse(HttpExchange exchange, int statusCode, String response) throws IOException {
-            byte[] responseBytes = response.getBytes(StandardCharsets.UTF_8);
-            exchange.sendResponseHeaders(statusCode, responseBytes.length);
+            exchange.sendResponseHeaders(response.status(), responseBytes.length);
             try (OutputStream os = exchange.getResponseBody()) {
                 os.write(responseBytes);
             }
         }
     }
+
+    private WebhookEndpoint.Response handleSingle(String method, String source, InputStream body) throws IOException {
+        if (!"POST".equals(method)) {
+            return WebhookEndpoint.Response.text(405, "Method Not Allowed");
+        }
+        // Checked before the body is read so rejected requests cost as little as possible
+        if (!sourceLimiter.tryAcquire(source)) {
+            return TOO_MANY_REQUESTS;
+        }
+
+        String requestBody;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new LimitedInputStream(body, maxBodyBytes), StandardCharsets.UTF_8))) {
+            StringBuilder sb = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                sb.append(line);
+            }
+            requestBody = sb.toString();
+        } catch (JsonUtils.LimitExceededException e) {
+            return PAYLOAD_TOO_LARGE;
+        }
+
+        if (processWebhook(requestBody) == WebhookResult.RATE_LIMITED) {
+            return TOO_MANY_REQUESTS;
+        }
+        return WebhookEndpoint.Response.text(200, "OK");
+    }
+
+    /**
+     * Accepts many events in one request, either as a JSON array of event objects or as
+     * newline-delimited JSON. Events are decoded one at a time as the body streams in and
+     * the response lists the outcome of each item in order.
+     *
+     * A body, event or event count over the limits gets 413, and anything other than event
+     * objects gets 400. Events before the problem have already been processed; their results
+     * are listed along with an "error" field.
+     */
+    private WebhookEndpoint.Response handleBatch(String method, String source, InputStream body) throws IOException {
+        if (!"POST".equals(method)) {
+            return WebhookEndpoint.Response.text(405, "Method Not Allowed");
+        }
+        if (!sourceLimiter.tryAcquire(source)) {
+            return TOO_MANY_REQUESTS;
+        }
+
+        StringBuilder results = new StringBuilder("[");
+        int[] count = new int[1];
+        int status = 200;
+        String error = null;
+        try (Reader reader = new InputStreamReader(new LimitedInputStream(body, maxBodyBytes), StandardCharsets.UTF_8)) {
+            JsonUtils.forEachObject(reader, maxItemChars, maxBatchItems, event -> {
+                if (results.length() > 1) results.append(',');
+                results.append('"').append(processWebhook(event).label()).append('"');
+                count[0]++;
+            });
+        } catch (JsonUtils.LimitExceededException e) {
+            status = 413;
+            error = "too_large";
+        } catch (JsonUtils.MalformedJsonException e) {
+            status = 400;
+            error = "malformed";
+        }
+        results.append(']');
+
+        return WebhookEndpoint.Response.json(status, "{\"received\":" + count[0] + ",\"results\":" + results
+                + (error != null ? ",\"error\":\"" + error + "\"" : "") + "}");
+    }
+
+    /**
+     * Outcome of processing a single webhook event.
+     */
+    enum WebhookResult {
+        OK("ok"),
+        IGNORED("ignored"),
+        INVALID("invalid"),
+        UNKNOWN_STREAMER("unknown_streamer"),
+        RATE_LIMITED("rate_limited"),
+        ERROR("error");
+
+        private final String label;
+
+        WebhookResult(String label) {
+            this.label = label;
+        }
+
+        String label() {
+            return label;
+        }
+    }
     
-    private void processWebhook(String payload) {
-        if (alertHandler == null) return;
+    /**
+     * A player registered for a broadcaster, with that broadcaster's rate-limit bucket.
+     */
+    private static final class KickSession {
+        final UUID playerId;
+        final Supplier<PlayerRef> playerRefSupplier;
+        final AtomicLong rateBucket;
+
+        KickSession(UUID playerId, Supplier<PlayerRef> playerRefSupplier, AtomicLong rateBucket) {
+            this.playerId = playerId;
+            this.playerRefSupplier = playerRefSupplier;
+            this.rateBucket = rateBucket;
+        }
+    }
+
+    private WebhookResult processWebhook(String payload) {
+        if (alertHandler == null) return WebhookResult.IGNORED;
 
         try {
             String eventType = JsonUtils.extractJsonValue(payload, "event_type");
             String username = JsonUtils.extractJsonValue(payload, "username");
-            String streamerIdStr = JsonUtils.extractJsonValue(payload, "streamer_id");
-            
-            if (eventType == null || username == null || streamerIdStr == null) return;
+            long broadcasterId = JsonUtils.extractJsonLong(payload, "broadcaster_user_id");
+            if (broadcasterId <= 0) broadcasterId = JsonUtils.extractJsonLong(payload, "streamer_id");
             
-            UUID streamerId;
-            try { streamerId = UUID.fromString(streamerIdStr); } catch (Exception e) { return; }
+            if (eventType == null || username == null || broadcasterId <= 0) return WebhookResult.INVALID;
             
-            Supplier<PlayerRef> playerRefSupplier = playerRefSuppliers.get(streamerId);
-            if (playerRefSupplier == null) return;
+            KickSession session = sessions.get(broadcasterId);
+            if (session == null) return WebhookResult.UNKNOWN_STREAMER;
+            if (!streamerLimiter.tryAcquire(session.rateBucket)) return WebhookResult.RATE_LIMITED;
             
-            PlayerRef player = playerRefSupplier.get();
-            System.out.println(eventType.toLowerCase());
+            StreamEvent event;
             switch (eventType.toLowerCase()) {
                 case "follow":
                 case "follower":
                 case "channel.follow":
-                    alertHandler.onFollow(player, username, "Kick");
+                case "channel.followed":
+                    event = StreamEvent.follow(username, "Kick");
                     break;
                 case "subscribe":
                 case "subscription":
                 case "channel.subscribe":
-                    alertHandler.onSubscribe(player, username, 1, "Kick");
+                case "channel.subscription.new":
+                    event = StreamEvent.subscribe(username, 1, "Kick");
                     break;
                 // Add more mappings if Kick supports them
+                default:
+                    return WebhookResult.IGNORED;
+            }
+
+            PlayerRef player = session.playerRefSupplier.get();
+            if (player == null || !player.isValid()) {
+                // Streamer is offline: keep the alert for their next join
+                alertHandler.onUndeliverable(session.playerId, event);
+            } else {
+                alertHandler.onEvent(player, event);
             }
+            return WebhookResult.OK;
         } catch (Exception e) {
             System.out.println("[HyStreamerAlerts] Error processing webhook: " + e.getMessage());
+            return WebhookResult.ERROR;
         }
     }
 }
@@ -0,0 +1,50 @@
+package io.patronian.HyStreamerAlerts.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Fails a request body that is longer than a limit, as soon as the limit is passed rather
+ * than after it has been buffered.
+ */
+class LimitedInputStream extends FilterInputStream {
+
+    private final long limit;
+    private long remaining;
+
+    LimitedInputStream(InputStream in, long limit) {
+        super(in);
+        this.limit = limit;
+        this.remaining = limit;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) consume(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        // One byte over the limit is enough to tell
+        int read = super.read(buffer, offset, (int) Math.min(length, remaining + 1));
+        if (read > 0) consume(read);
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(Math.min(n, remaining + 1));
+        if (skipped > 0) consume(skipped);
+        return skipped;
+    }
+
+    private void consume(long bytes) throws JsonUtils.LimitExceededException {
+        remaining -= bytes;
+        if (remaining < 0) {
+            throw new JsonUtils.LimitExceededException("Body longer than " + limit + " bytes");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package io.patronian.HyStreamerAlerts.impl;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Open-addressing map from primitive long keys to values, tuned for many concurrent
+ * readers and rare writers. Lookups read one volatile table reference and probe it with
+ * no boxing or allocation; writers are serialized and publish a fresh copy of the table.
+ * Key 0 is reserved as the empty-slot marker and cannot be stored.
+ */
+public class LongKeyedMap<V> {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table = new Table(MIN_CAPACITY);
+
+    public V get(long key) {
+        Table t = table;
+        int mask = t.keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = t.keys[i];
+            if (k == key) {
+                @SuppressWarnings("unchecked")
+                V value = (V) t.values[i];
+                return value;
+            }
+            if (k == 0) return null;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    public synchronized V put(long key, V value) {
+        if (key == 0) throw new IllegalArgumentException("Key 0 is reserved");
+        if (value == null) throw new IllegalArgumentException("Null values are not supported");
+        V previous = get(key);
+        int size = table.size + (previous == null ? 1 : 0);
+        Table next = copy(table, size, key);
+        next.insert(key, value);
+        next.size = size;
+        table = next;
+        return previous;
+    }
+
+    public synchronized V remove(long key) {
+        V previous = get(key);
+        if (previous == null) return null;
+        Table next = copy(table, table.size - 1, key);
+        next.size = table.size - 1;
+        table = next;
+        return previous;
+    }
+
+    public synchronized void clear() {
+        table = new Table(MIN_CAPACITY);
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    public void forEach(BiConsumer<Long, V> action) {
+        Table t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            if (t.keys[i] != 0) {
+                @SuppressWarnings("unchecked")
+                V value = (V) t.values[i];
+                action.accept(t.keys[i], value);
+            }
+        }
+    }
+
+    /**
+     * Copies every entry except {@code skipKey} into a table sized for {@code size} entries.
+     */
+    private static Table copy(Table source, int size, long skipKey) {
+        int capacity = MIN_CAPACITY;
+        // Keep the load factor at or below one half so probe chains stay short
+        while (capacity < size * 2) capacity <<= 1;
+        Table next = new Table(capacity);
+        for (int i = 0; i < source.keys.length; i++) {
+            long k = source.keys[i];
+            if (k != 0 && k != skipKey) next.insert(k, source.values[i]);
+        }
+        return next;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        int size;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+
+        void insert(long key, Object value) {
+            int mask = keys.length - 1;
+            int i = mix(key) & mask;
+            while (keys[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+            keys[i] = key;
+            values[i] = value;
+        }
+    }
+}
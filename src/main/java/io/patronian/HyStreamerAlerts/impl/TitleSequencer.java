@@ -0,0 +1,229 @@
+package io.patronian.HyStreamerAlerts.impl;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.util.EventTitleUtil;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+import io.patronian.HyStreamerAlerts.template.TemplateKey;
+import io.patronian.HyStreamerAlerts.template.Templates;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Queues event titles per player so each one stays on screen for a minimum time.
+ *
+ * Titles are shown highest priority first (raid > donation > gift > sub > follow). When a
+ * follow or sub title is shown, other queued titles of the same type are folded into it
+ * ("+N more"), and follow/sub titles that have waited longer than the maximum wait are
+ * dropped. When a player's queue is full the lowest follow/sub title goes; raid, donation and
+ * gift titles are never dropped. Each title's chat line is sent when the title is shown, so
+ * chat and screen stay in step. Not thread-safe: {@link #submit} and {@link #tick} run on the render thread.
+ */
+public class TitleSequencer {
+
+    // Highest priority first, then oldest first
+    private static final Comparator<PendingTitle> ORDER = (a, b) -> {
+        int byPriority = Integer.compare(b.type.getPriority(), a.type.getPriority());
+        return byPriority != 0 ? byPriority : Long.compare(a.sequence, b.sequence);
+    };
+
+    private final long minDisplayNanos;
+    private final long maxWaitNanos;
+    private final int maxQueued;
+    private final Templates templates;
+    private final Map<UUID, PlayerTitles> players = new HashMap<>();
+
+    private long shown;
+    private long merged;
+    private long dropped;
+
+    public TitleSequencer(long minDisplayMillis, long maxWaitMillis, int maxQueued) {
+        this(minDisplayMillis, maxWaitMillis, maxQueued, Templates.defaults());
+    }
+
+    /**
+     * @param templates Supplies the "+N more" suffix; only used from the render thread
+     */
+    public TitleSequencer(long minDisplayMillis, long maxWaitMillis, int maxQueued, Templates templates) {
+        this.minDisplayNanos = TimeUnit.MILLISECONDS.toNanos(minDisplayMillis);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.maxQueued = Math.max(1, maxQueued);
+        this.templates = templates;
+    }
+
+    /**
+     * @param chatLine Builds the chat line sent along with the title, from the subtitle as shown
+     * @param streamerId The streamer whose feed the event came from; null if not from a feed
+     * @param event The event the title shows; null if not from a feed, and then never handed
+     *              back by {@link #drainPending}
+     */
+    public void submit(PlayerRef player, StreamEventType type, Message title, String subtitle,
+                       Function<String, Message> chatLine, UUID streamerId, StreamEvent event) {
+        PlayerTitles state = players.computeIfAbsent(player.getUuid(), id -> new PlayerTitles());
+        state.player = player;
+        state.queue.add(new PendingTitle(type, title, subtitle, chatLine, streamerId, event,
+                System.nanoTime(), state.sequence++));
+        if (state.queue.size() > maxQueued) {
+            dropLowest(state);
+        }
+        // Nothing on screen: show right away instead of waiting for the next tick
+        showNext(state, System.nanoTime());
+    }
+
+    /**
+     * Shows the next title for every player whose current title has been up long enough.
+     */
+    public void tick() {
+        long now = System.nanoTime();
+        Iterator<PlayerTitles> it = players.values().iterator();
+        while (it.hasNext()) {
+            PlayerTitles state = it.next();
+            if (!state.player.isValid()) {
+                it.remove();
+                continue;
+            }
+            showNext(state, now);
+            if (state.queue.isEmpty() && now - state.shownUntil >= 0) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes every queued title, e.g. at shutdown, and returns the events behind them,
+     * highest priority first per player, so they can be saved and shown after a restart.
+     */
+    public List<Pending> drainPending() {
+        List<Pending> pending = new ArrayList<>();
+        for (PlayerTitles state : players.values()) {
+            PendingTitle title;
+            while ((title = state.queue.poll()) != null) {
+                if (title.event != null) pending.add(new Pending(state.player, title.streamerId, title.event));
+            }
+        }
+        players.clear();
+        return pending;
+    }
+
+    private void showNext(PlayerTitles state, long now) {
+        if (now - state.shownUntil < 0) return;
+        dropExpired(state, now);
+
+        PendingTitle next = state.queue.poll();
+        if (next == null) return;
+
+        // A burst already names its own count ("12 new followers"); others of its type wait
+        // for the next title rather than being tacked on as "+N more"
+        int foldedIn = 0;
+        if (isDroppable(next.type) && !isBurst(next)) {
+            Iterator<PendingTitle> it = state.queue.iterator();
+            while (it.hasNext()) {
+                PendingTitle queued = it.next();
+                if (queued.type == next.type) {
+                    it.remove();
+                    foldedIn += queued.event == null ? 1 : Math.max(1, queued.event.getMergedCount());
+                    merged++;
+                }
+            }
+        }
+
+        String subtitle = foldedIn > 0
+                ? templates.text(TemplateKey.TITLE_FOLDED, next.subtitle, Integer.toString(foldedIn))
+                : next.subtitle;
+        state.player.sendMessage(next.chatLine.apply(subtitle));
+        EventTitleUtil.showEventTitleToPlayer(state.player, next.title, Message.raw(subtitle), true);
+        state.shownUntil = now + minDisplayNanos;
+        shown++;
+    }
+
+    private void dropExpired(PlayerTitles state, long now) {
+        Iterator<PendingTitle> it = state.queue.iterator();
+        while (it.hasNext()) {
+            PendingTitle title = it.next();
+            if (isDroppable(title.type) && now - title.queuedNanos > maxWaitNanos) {
+                it.remove();
+                dropped++;
+            }
+        }
+    }
+
+    /**
+     * Drops the lowest-priority, newest follow/sub title. A queue of nothing but higher
+     * priority titles is left over the limit rather than losing one of them.
+     */
+    private void dropLowest(PlayerTitles state) {
+        PendingTitle lowest = null;
+        for (PendingTitle title : state.queue) {
+            if (isDroppable(title.type) && (lowest == null || ORDER.compare(title, lowest) > 0)) lowest = title;
+        }
+        if (lowest == null) return;
+        state.queue.remove(lowest);
+        dropped++;
+    }
+
+    private static boolean isBurst(PendingTitle title) {
+        return title.event != null && title.event.isBurst();
+    }
+
+    private static boolean isDroppable(StreamEventType type) {
+        return type.getPriority() <= StreamEventType.SUBSCRIBE.getPriority();
+    }
+
+    public long getShownCount() {
+        return shown;
+    }
+
+    public long getMergedCount() {
+        return merged;
+    }
+
+    public long getDroppedCount() {
+        return dropped;
+    }
+
+    /**
+     * A title that was queued but never shown, as the event it was made from.
+     */
+    public record Pending(PlayerRef player, UUID streamerId, StreamEvent event) {
+    }
+
+    private static final class PlayerTitles {
+        final PriorityQueue<PendingTitle> queue = new PriorityQueue<>(ORDER);
+        PlayerRef player;
+        long shownUntil = System.nanoTime();
+        long sequence;
+    }
+
+    private static final class PendingTitle {
+        final StreamEventType type;
+        final Message title;
+        final String subtitle;
+        final Function<String, Message> chatLine;
+        final UUID streamerId;
+        final StreamEvent event;
+        final long queuedNanos;
+        final long sequence;
+
+        PendingTitle(StreamEventType type, Message title, String subtitle, Function<String, Message> chatLine,
+                     UUID streamerId, StreamEvent event, long queuedNanos, long sequence) {
+            this.type = type;
+            this.title = title;
+            this.subtitle = subtitle;
+            this.chatLine = chatLine;
+            this.streamerId = streamerId;
+            this.event = event;
+            this.queuedNanos = queuedNanos;
+            this.sequence = sequence;
+        }
+    }
+}
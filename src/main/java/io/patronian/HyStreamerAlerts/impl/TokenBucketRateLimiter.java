@@ -0,0 +1,125 @@
+package io.patronian.HyStreamerAlerts.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keyed token-bucket rate limiter that takes no locks on the request path.
+ * Each bucket is a single AtomicLong holding the time at which the bucket will be
+ * full again (the GCRA form of a token bucket), updated with a CAS loop.
+ * Callers that already hold a per-key object can keep a bucket from {@link #newBucket()}
+ * on it and skip the map lookup.
+ *
+ * Keys may be attacker-controlled (source addresses), so the map is bounded: idle buckets
+ * are swept at most once per {@value #SWEEP_INTERVAL_MILLIS} ms once it grows past
+ * {@value #CLEANUP_THRESHOLD} keys, and past {@value #MAX_KEYS} keys new keys share a
+ * single overflow bucket instead of getting their own.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final int CLEANUP_THRESHOLD = 10_000;
+    private static final int MAX_KEYS = 100_000;
+    private static final long SWEEP_INTERVAL_MILLIS = 1000;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicLong overflowBucket = new AtomicLong(System.nanoTime());
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime());
+    private volatile long emissionIntervalNanos;
+    private volatile long burstWindowNanos;
+
+    /**
+     * @param permitsPerSecond Sustained rate allowed per key; zero or less disables limiting
+     * @param burst Number of requests a key may make at once after being idle
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        setLimit(permitsPerSecond, burst);
+    }
+
+    public void setLimit(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0) {
+            this.emissionIntervalNanos = 0;
+            this.burstWindowNanos = 0;
+            return;
+        }
+        long interval = (long) (1_000_000_000L / permitsPerSecond);
+        this.emissionIntervalNanos = Math.max(1, interval);
+        this.burstWindowNanos = this.emissionIntervalNanos * Math.max(1, burst);
+    }
+
+    /**
+     * Takes one token from the bucket for the given key.
+     *
+     * @param key The bucket key (e.g. source address or streamer ID)
+     * @return true if the request is within its limit
+     */
+    public boolean tryAcquire(String key) {
+        if (emissionIntervalNanos == 0) return true;
+
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            long now = System.nanoTime();
+            if (buckets.size() >= CLEANUP_THRESHOLD) maybeEvictIdle(now);
+            if (buckets.size() >= MAX_KEYS) return tryAcquire(overflowBucket);
+            AtomicLong fresh = new AtomicLong(now);
+            bucket = buckets.putIfAbsent(key, fresh);
+            if (bucket == null) bucket = fresh;
+        }
+        return tryAcquire(bucket);
+    }
+
+    /**
+     * Creates a full bucket that is not tracked by this limiter's map.
+     */
+    public AtomicLong newBucket() {
+        return new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes one token from a bucket created by {@link #newBucket()}, using this limiter's rate.
+     *
+     * @param bucket The bucket state
+     * @return true if the request is within its limit
+     */
+    public boolean tryAcquire(AtomicLong bucket) {
+        long interval = emissionIntervalNanos;
+        if (interval == 0) return true;
+        long burstWindow = burstWindowNanos;
+        long now = System.nanoTime();
+
+        while (true) {
+            long fullAt = bucket.get();
+            long base = fullAt - now < 0 ? now : fullAt;
+            long next = base + interval;
+            if (next - now > burstWindow) {
+                rejected.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Drops buckets that have refilled completely; they behave the same as a new bucket.
+     * Only one caller sweeps per interval, so a flood of new keys costs one scan per
+     * interval rather than one per request.
+     */
+    private void maybeEvictIdle(long now) {
+        long due = nextSweepNanos.get();
+        if (now - due < 0) return;
+        if (!nextSweepNanos.compareAndSet(due, now + SWEEP_INTERVAL_MILLIS * 1_000_000L)) return;
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public int getTrackedKeys() {
+        return buckets.size();
+    }
+}
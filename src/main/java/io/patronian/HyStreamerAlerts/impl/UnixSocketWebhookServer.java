@@ -0,0 +1,358 @@
+package io.patronian.HyStreamerAlerts.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal HTTP/1.1 listener on a Unix domain socket, for webhooks forwarded by a local
+ * reverse proxy. Supports Content-Length bodies and keep-alive; requests are dispatched to
+ * the same {@link WebhookEndpoint}s as the TCP listener.
+ *
+ * Each open connection holds one of the few worker threads, and Unix socket channels have no
+ * read timeout of their own, so connections that have not sent anything for
+ * {@value #IDLE_TIMEOUT_MILLIS} ms are closed by a reaper, which also ends the blocked read.
+ */
+public class UnixSocketWebhookServer {
+
+    private static final int MAX_LINE_BYTES = 8192;
+    private static final int MAX_HEADERS = 100;
+    private static final long IDLE_TIMEOUT_MILLIS = 10_000;
+    // S_IFMT and S_IFSOCK from stat(2)
+    private static final int FILE_TYPE_MASK = 0170000;
+    private static final int FILE_TYPE_SOCKET = 0140000;
+
+    private final Path socketPath;
+    private final Map<String, WebhookEndpoint> routes;
+    private final ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
+        Thread thread = new Thread(r, "HyStreamerAlerts-UnixSocket-Worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "HyStreamerAlerts-UnixSocket-Reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    public UnixSocketWebhookServer(Path socketPath, Map<String, WebhookEndpoint> routes) {
+        this.socketPath = socketPath;
+        this.routes = Map.copyOf(routes);
+    }
+
+    /**
+     * @throws FileAlreadyExistsException If something other than a socket is at the socket path
+     */
+    public void start() throws IOException {
+        // A socket file left behind by an unclean shutdown would make bind fail, but anything
+        // else at that path is not ours to delete
+        if (Files.exists(socketPath, LinkOption.NOFOLLOW_LINKS)) {
+            if (!isSocket(socketPath)) {
+                throw new FileAlreadyExistsException(socketPath.toString(), null, "not a Unix socket");
+            }
+            Files.delete(socketPath);
+        }
+        if (socketPath.getParent() != null) {
+            Files.createDirectories(socketPath.getParent());
+        }
+
+        serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+        running = true;
+
+        Thread acceptThread = new Thread(this::acceptLoop, "HyStreamerAlerts-UnixSocket");
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+        reaper.scheduleWithFixedDelay(this::closeIdleConnections, 1, 1, TimeUnit.SECONDS);
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (serverChannel != null) serverChannel.close();
+        } catch (IOException ignored) {}
+        reaper.shutdownNow();
+        // Let requests already being handled finish
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.SECONDS)) executor.shutdownNow();
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (isSocket(socketPath)) Files.delete(socketPath);
+        } catch (IOException ignored) {}
+    }
+
+    private static boolean isSocket(Path path) throws IOException {
+        try {
+            int mode = (Integer) Files.getAttribute(path, "unix:mode", LinkOption.NOFOLLOW_LINKS);
+            return (mode & FILE_TYPE_MASK) == FILE_TYPE_SOCKET;
+        } catch (UnsupportedOperationException e) {
+            // No unix attribute view: a socket is at least neither a file, directory nor link
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther();
+        }
+    }
+
+    private void closeIdleConnections() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MILLIS);
+        for (Connection connection : connections) {
+            if (connection.lastActivityNanos - cutoff < 0) {
+                try {
+                    connection.channel.close();
+                } catch (IOException ignored) {}
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                executor.execute(() -> serve(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("[HyStreamerAlerts] Unix socket accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(SocketChannel channel) {
+        Connection connection = new Connection(channel);
+        connections.add(connection);
+        try (channel) {
+            InputStream in = new BufferedInputStream(new ActivityInputStream(Channels.newInputStream(channel), connection));
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel));
+            boolean keepAlive = true;
+            while (running && keepAlive) {
+                keepAlive = serveRequest(in, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Peer went away mid-request, or the connection was closed as idle; nothing to answer
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    /**
+     * Reads and answers one request.
+     * @return true if the connection can be reused for another request
+     */
+    private boolean serveRequest(InputStream in, OutputStream out) throws IOException {
+        String requestLine = readLine(in);
+        if (requestLine == null) return false;
+        if (requestLine.isEmpty()) return true;
+
+        String[] parts = requestLine.split(" ");
+        if (parts.length != 3) {
+            writeResponse(out, WebhookEndpoint.Response.text(400, "Bad Request"), false);
+            return false;
+        }
+        String method = parts[0];
+        String path = parts[1];
+        int query = path.indexOf('?');
+        if (query != -1) path = path.substring(0, query);
+
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && headers.size() < MAX_HEADERS) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        if (line == null) return false;
+
+        String connection = headers.getOrDefault("connection", "").toLowerCase(Locale.ROOT);
+        boolean keepAlive = "HTTP/1.1".equals(parts[2])
+                ? !connection.equals("close")
+                : connection.equals("keep-alive");
+
+        if (headers.containsKey("transfer-encoding")) {
+            writeResponse(out, WebhookEndpoint.Response.text(411, "Length Required"), false);
+            return false;
+        }
+        long contentLength;
+        try {
+            contentLength = Long.parseLong(headers.getOrDefault("content-length", "0"));
+        } catch (NumberFormatException e) {
+            writeResponse(out, WebhookEndpoint.Response.text(400, "Bad Request"), false);
+            return false;
+        }
+
+        WebhookEndpoint endpoint = routes.get(path);
+        if (endpoint == null) {
+            writeResponse(out, WebhookEndpoint.Response.text(404, "Not Found"), false);
+            return false;
+        }
+
+        BoundedInputStream body = new BoundedInputStream(in, contentLength);
+        WebhookEndpoint.Response response = endpoint.handle(method, sourceOf(headers), body);
+
+        // A body the endpoint did not consume (e.g. rate-limited) is not worth draining
+        if (body.remaining > 0) keepAlive = false;
+        writeResponse(out, response, keepAlive);
+        return keepAlive;
+    }
+
+    /**
+     * All peers on the socket are the local proxy, so the real client is taken from the
+     * forwarding headers it sets: X-Real-IP, or else the last X-Forwarded-For hop, which is the
+     * one the proxy appended. Earlier hops come from the client and are ignored, so a sender
+     * cannot pick a fresh rate-limit source per request.
+     */
+    private static String sourceOf(Map<String, String> headers) {
+        String realIp = headers.get("x-real-ip");
+        if (realIp != null && !realIp.isEmpty()) return realIp.trim();
+        String forwardedFor = headers.get("x-forwarded-for");
+        if (forwardedFor != null) {
+            String lastHop = forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+            if (!lastHop.isEmpty()) return lastHop;
+        }
+        return "unix";
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                return line.toString(StandardCharsets.ISO_8859_1).stripTrailing();
+            }
+            if (line.size() >= MAX_LINE_BYTES) {
+                throw new IOException("Header line too long");
+            }
+            line.write(b);
+        }
+        return line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void writeResponse(OutputStream out, WebhookEndpoint.Response response, boolean keepAlive) throws IOException {
+        byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+        StringBuilder head = new StringBuilder(128)
+                .append("HTTP/1.1 ").append(response.status()).append(' ').append(reasonPhrase(response.status())).append("\r\n")
+                .append("Content-Type: ").append(response.contentType()).append("\r\n")
+                .append("Content-Length: ").append(body.length).append("\r\n");
+        if (response.status() == 429) head.append("Retry-After: 1\r\n");
+        if (!keepAlive) head.append("Connection: close\r\n");
+        head.append("\r\n");
+        out.write(head.toString().getBytes(StandardCharsets.ISO_8859_1));
+        out.write(body);
+    }
+
+    private static String reasonPhrase(int status) {
+        switch (status) {
+            case 200: return "OK";
+            case 400: return "Bad Request";
+            case 404: return "Not Found";
+            case 405: return "Method Not Allowed";
+            case 411: return "Length Required";
+            case 413: return "Payload Too Large";
+            case 429: return "Too Many Requests";
+            default: return "Status";
+        }
+    }
+
+    private static class Connection {
+        final SocketChannel channel;
+        volatile long lastActivityNanos = System.nanoTime();
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * Records when the peer last sent anything, for the idle reaper.
+     */
+    private static class ActivityInputStream extends FilterInputStream {
+        private final Connection connection;
+
+        ActivityInputStream(InputStream in, Connection connection) {
+            super(in);
+            this.connection = connection;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            connection.lastActivityNanos = System.nanoTime();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            connection.lastActivityNanos = System.nanoTime();
+            return read;
+        }
+    }
+
+    /**
+     * Exposes exactly one request body from the connection stream. Closing it leaves the
+     * connection open for the next request.
+     */
+    private static class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long length) {
+            this.in = in;
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b != -1) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) return -1;
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) remaining -= read;
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // The connection stream outlives the request
+        }
+    }
+}
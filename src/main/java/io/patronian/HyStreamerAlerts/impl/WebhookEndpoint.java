@@ -0,0 +1,29 @@
+package io.patronian.HyStreamerAlerts.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Transport-independent webhook request handler, shared by the TCP and Unix socket listeners.
+ */
+@FunctionalInterface
+public interface WebhookEndpoint {
+
+    /**
+     * Handles one request.
+     * @param method The HTTP method
+     * @param source Key identifying the caller, used for rate limiting
+     * @param body The request body; endpoints may return without reading it
+     */
+    Response handle(String method, String source, InputStream body) throws IOException;
+
+    record Response(int status, String contentType, String body) {
+        static Response text(int status, String body) {
+            return new Response(status, "text/plain", body);
+        }
+
+        static Response json(int status, String body) {
+            return new Response(status, "application/json", body);
+        }
+    }
+}
@@ -1,67 +1,257 @@
 package io.patronian.HyStreamerAlerts.manager;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.UnaryOperator;
 
+/**
+ * Per-player alert settings.
+ *
+ * Storage is delegated to a {@link SettingsStore}. Changes only mark the data dirty; a
+ * background writer flushes the store once per debounce interval, so a burst of commands
+ * costs one write and commands never wait on the disk.
+ *
+ * Each player's settings are one immutable {@link PlayerSettings}, so reads from alert
+ * threads take no locks; writers are serialized on a single lock.
+ *
+ * With {@link #loadAsync} the data is read in the background. Until it is ready, reads wait
+ * for it up to a timeout and then answer from what is loaded; changes are queued instead.
+ */
 public class AlertDataManager {
     
-    private final Path dataFile;
-    private final Set<UUID> enabledPlayers = new HashSet<>();
-    private final Map<UUID, String> playerBroadcastIds = new HashMap<>();
-    private final Map<UUID, String> playerChatIds = new HashMap<>();
+    private final Path dataFolder;
+    private final SettingsStore store;
+    private final long saveDelayMillis;
+    private final ScheduledExecutorService writer;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+    private final Object writeLock = new Object();
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private volatile long loadWaitMillis = 2000;
+    private volatile long waitedOutAtNanos = System.nanoTime() - Long.MAX_VALUE / 2;
     
     public AlertDataManager(Path dataFolder) {
-        this.dataFile = dataFolder.resolve("alerts.json");
+        this(dataFolder, new JournaledSettingsStore(dataFolder, 1000), 2000);
+    }
+
+    /**
+     * @param store Where settings are kept
+     * @param saveDelayMillis How long after the first unsaved change the data is written
+     */
+    public AlertDataManager(Path dataFolder, SettingsStore store, long saveDelayMillis) {
+        this.dataFolder = dataFolder;
+        this.store = store;
+        this.saveDelayMillis = Math.max(0, saveDelayMillis);
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "HyStreamerAlerts-DataWriter");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
     
+    /**
+     * Loads settings on the calling thread.
+     */
     public void load() {
-        if (!Files.exists(dataFile)) {
-            return;
-        }
-        
+        long start = System.nanoTime();
         try {
-            String content = Files.readString(dataFile, StandardCharsets.UTF_8);
-            parseJson(content);
-            System.out.println("[HyStreamerAlerts] Loaded " + enabledPlayers.size() + " player alert settings");
-        } catch (IOException e) {
+            synchronized (writeLock) {
+                store.load();
+                if (store.isEmpty() && !(store instanceof JournaledSettingsStore)) {
+                    importLegacySettings();
+                }
+            }
+            System.out.println("[HyStreamerAlerts] Player settings ready in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (IOException | RuntimeException e) {
             System.out.println("[HyStreamerAlerts] Failed to load alert data: " + e.getMessage());
+        } finally {
+            // Also on failure, so nothing waits forever
+            ready.complete(null);
+            applyPending();
+        }
+    }
+
+    /**
+     * Loads settings on the background writer so startup does not wait for the disk.
+     * Accessors called before loading finishes wait up to {@code loadWaitMillis} for it.
+     */
+    public void loadAsync(long loadWaitMillis) {
+        this.loadWaitMillis = Math.max(0, loadWaitMillis);
+        writer.execute(this::load);
+    }
+
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    /**
+     * Waits for loading to finish, at most {@code loadWaitMillis}.
+     *
+     * @return false if loading is still running
+     */
+    private boolean awaitReady() {
+        if (ready.isDone()) return true;
+        // A command makes several calls; after one of them timed out the rest do not wait again
+        if (System.nanoTime() - waitedOutAtNanos < TimeUnit.MILLISECONDS.toNanos(loadWaitMillis)) return false;
+        try {
+            ready.get(loadWaitMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            waitedOutAtNanos = System.nanoTime();
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
         }
     }
+
+    /**
+     * Copies settings from alerts.json into a newly configured backend.
+     */
+    private void importLegacySettings() throws IOException {
+        JournaledSettingsStore legacy = new JournaledSettingsStore(dataFolder, Long.MAX_VALUE);
+        if (!legacy.exists()) return;
+        legacy.load();
+        legacy.forEach(store::put);
+        legacy.close();
+        store.flush();
+        System.out.println("[HyStreamerAlerts] Imported " + legacy.size() + " player settings from alerts.json");
+    }
     
+    /**
+     * Writes pending changes now.
+     */
     public void save() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+
         try {
-            // Ensure parent directory exists
-            Files.createDirectories(dataFile.getParent());
-            
-            String json = toJson();
-            Files.writeString(dataFile, json, StandardCharsets.UTF_8);
+            store.flush();
         } catch (IOException e) {
+            // Keep the changes pending so the next save or shutdown retries
+            dirty.set(true);
             System.out.println("[HyStreamerAlerts] Failed to save alert data: " + e.getMessage());
         }
     }
+
+    /**
+     * Stops the background writer and saves any pending changes.
+     */
+    public void shutdown() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        save();
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.out.println("[HyStreamerAlerts] Failed to close settings store: " + e.getMessage());
+        }
+    }
+
+    private void markDirty() {
+        dirty.set(true);
+        if (saveScheduled.compareAndSet(false, true)) {
+            try {
+                writer.schedule(() -> {
+                    saveScheduled.set(false);
+                    save();
+                }, saveDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the final save picks the change up
+                saveScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Gets all settings of a player.
+     * 
+     * @param playerId The player's UUID
+     * @return The settings, {@link PlayerSettings#EMPTY} if none are stored
+     */
+    public PlayerSettings getSettings(UUID playerId) {
+        // Past the wait, answer from whatever is loaded so far
+        awaitReady();
+        PlayerSettings playerSettings = store.get(playerId);
+        return playerSettings != null ? playerSettings : PlayerSettings.EMPTY;
+    }
+
+    /**
+     * Applies a change to a player's settings. Writers are serialized; readers never block.
+     */
+    private void update(UUID playerId, UnaryOperator<PlayerSettings> change) {
+        if (!awaitReady()) {
+            // Applying it now would be overwritten by the load; apply it once loading is done
+            System.out.println("[HyStreamerAlerts] Player settings are still loading, change queued");
+            pending.add(() -> apply(playerId, change));
+            // Loading may have finished since the check, after its own drain
+            if (ready.isDone()) applyPending();
+            return;
+        }
+        // Changes queued during loading go first
+        applyPending();
+        apply(playerId, change);
+    }
+
+    /**
+     * Applies the changes queued while loading, in the order they were made.
+     */
+    private void applyPending() {
+        if (pending.isEmpty()) return;
+        synchronized (writeLock) {
+            Runnable change;
+            while ((change = pending.poll()) != null) {
+                change.run();
+            }
+        }
+    }
+
+    private void apply(UUID playerId, UnaryOperator<PlayerSettings> change) {
+        synchronized (writeLock) {
+            PlayerSettings current = store.get(playerId);
+            store.put(playerId, change.apply(current != null ? current : PlayerSettings.EMPTY));
+        }
+        markDirty();
+    }
     
     public boolean isEnabled(UUID playerId) {
-        return enabledPlayers.contains(playerId);
+        return getSettings(playerId).enabled();
     }
     
     public void setEnabled(UUID playerId, boolean enabled) {
-        if (enabled) {
-            enabledPlayers.add(playerId);
-        } else {
-            enabledPlayers.remove(playerId);
-        }
-        save();
+        update(playerId, current -> current.withEnabled(enabled));
     }
     
     public Set<UUID> getEnabledPlayers() {
-        return new HashSet<>(enabledPlayers);
+        awaitReady();
+        Set<UUID> enabled = new HashSet<>();
+        store.forEach((playerId, playerSettings) -> {
+            if (playerSettings.enabled()) enabled.add(playerId);
+        });
+        return enabled;
     }
     
     /**
@@ -71,7 +261,7 @@ public class AlertDataManager {
      * @return The broadcast ID or null if not set
      */
     public String getBroadcastId(UUID playerId) {
-        return playerBroadcastIds.get(playerId);
+        return getSettings(playerId).broadcastId();
     }
     
     /**
@@ -81,12 +271,7 @@ public class AlertDataManager {
      * @param broadcastId The Botrix broadcast ID (bid)
      */
     public void setBroadcastId(UUID playerId, String broadcastId) {
-        if (broadcastId == null || broadcastId.isEmpty()) {
-            playerBroadcastIds.remove(playerId);
-        } else {
-            playerBroadcastIds.put(playerId, broadcastId);
-        }
-        save();
+        update(playerId, current -> current.withBroadcastId(broadcastId));
     }
     
     /**
@@ -95,7 +280,12 @@ public class AlertDataManager {
      * @return Map of player UUIDs to broadcast IDs
      */
     public Map<UUID, String> getAllBroadcastIds() {
-        return new HashMap<>(playerBroadcastIds);
+        awaitReady();
+        Map<UUID, String> broadcastIds = new HashMap<>();
+        store.forEach((playerId, playerSettings) -> {
+            if (playerSettings.broadcastId() != null) broadcastIds.put(playerId, playerSettings.broadcastId());
+        });
+        return broadcastIds;
     }
     
     /**
@@ -105,7 +295,7 @@ public class AlertDataManager {
      * @return true if the player has a broadcast ID
      */
     public boolean hasBroadcastId(UUID playerId) {
-        return playerBroadcastIds.containsKey(playerId);
+        return getBroadcastId(playerId) != null;
     }
 
     /**
@@ -115,7 +305,7 @@ public class AlertDataManager {
      * @return The chat ID or null if not set
      */
     public String getChatId(UUID playerId) {
-        return playerChatIds.get(playerId);
+        return getSettings(playerId).chatId();
     }
 
     /**
@@ -125,12 +315,7 @@ public class AlertDataManager {
      * @param chatId The chat ID
      */
     public void setChatId(UUID playerId, String chatId) {
-        if (chatId == null || chatId.isEmpty()) {
-            playerChatIds.remove(playerId);
-        } else {
-            playerChatIds.put(playerId, chatId);
-        }
-        save();
+        update(playerId, current -> current.withChatId(chatId));
     }
 
     /**
@@ -140,176 +325,36 @@ public class AlertDataManager {
      * @return true if the player has a chat ID
      */
     public boolean hasChatId(UUID playerId) {
-        return playerChatIds.containsKey(playerId);
-    }
-    
-    private void parseJson(String json) {
-        enabledPlayers.clear();
-        playerBroadcastIds.clear();
-        playerChatIds.clear();
-        
-        // Parse enabledPlayers array
-        int enabledStart = json.indexOf("\"enabledPlayers\"");
-        if (enabledStart != -1) {
-            int arrayStart = json.indexOf("[", enabledStart);
-            int arrayEnd = findMatchingBracket(json, arrayStart);
-            
-            if (arrayStart != -1 && arrayEnd != -1) {
-                String arrayContent = json.substring(arrayStart + 1, arrayEnd);
-                parseUuidArray(arrayContent, enabledPlayers);
-            }
-        }
-        
-        // Parse broadcastIds object
-        int broadcastStart = json.indexOf("\"broadcastIds\"");
-        if (broadcastStart != -1) {
-            int objStart = json.indexOf("{", broadcastStart);
-            int objEnd = findMatchingBrace(json, objStart);
-            
-            if (objStart != -1 && objEnd != -1) {
-                String objContent = json.substring(objStart + 1, objEnd);
-                parseMap(objContent, playerBroadcastIds);
-            }
-        }
-
-        // Parse chatIds object
-        int chatStart = json.indexOf("\"chatIds\"");
-        if (chatStart != -1) {
-            int objStart = json.indexOf("{", chatStart);
-            int objEnd = findMatchingBrace(json, objStart);
-            
-            if (objStart != -1 && objEnd != -1) {
-                String objContent = json.substring(objStart + 1, objEnd);
-                parseMap(objContent, playerChatIds);
-            }
-        }
-    }
-    
-    private int findMatchingBracket(String json, int start) {
-        if (start == -1 || json.charAt(start) != '[') return -1;
-        int depth = 1;
-        for (int i = start + 1; i < json.length(); i++) {
-            if (json.charAt(i) == '[') depth++;
-            else if (json.charAt(i) == ']') {
-                depth--;
-                if (depth == 0) return i;
-            }
-        }
-        return -1;
-    }
-    
-    private int findMatchingBrace(String json, int start) {
-        if (start == -1 || json.charAt(start) != '{') return -1;
-        int depth = 1;
-        for (int i = start + 1; i < json.length(); i++) {
-            if (json.charAt(i) == '{') depth++;
-            else if (json.charAt(i) == '}') {
-                depth--;
-                if (depth == 0) return i;
-            }
-        }
-        return -1;
+        return getChatId(playerId) != null;
     }
     
-    private void parseUuidArray(String arrayContent, Set<UUID> target) {
-        int index = 0;
-        while (index < arrayContent.length()) {
-            int quoteStart = arrayContent.indexOf("\"", index);
-            if (quoteStart == -1) break;
-            
-            int quoteEnd = arrayContent.indexOf("\"", quoteStart + 1);
-            if (quoteEnd == -1) break;
-            
-            String uuidStr = arrayContent.substring(quoteStart + 1, quoteEnd);
-            try {
-                target.add(UUID.fromString(uuidStr));
-            } catch (IllegalArgumentException ignored) {
-                // Skip invalid UUIDs
-            }
-            
-            index = quoteEnd + 1;
-        }
+    /**
+     * Gets the numeric Kick broadcaster ID for a player.
+     * 
+     * @param playerId The player's UUID
+     * @return The broadcaster ID or null if not set
+     */
+    public String getKickBroadcasterId(UUID playerId) {
+        return getSettings(playerId).kickBroadcasterId();
     }
-    
-    private void parseMap(String objContent, Map<UUID, String> target) {
-        // Parse key-value pairs like "uuid": "value"
-        int index = 0;
-        while (index < objContent.length()) {
-            // Find key
-            int keyStart = objContent.indexOf("\"", index);
-            if (keyStart == -1) break;
-            
-            int keyEnd = objContent.indexOf("\"", keyStart + 1);
-            if (keyEnd == -1) break;
-            
-            String key = objContent.substring(keyStart + 1, keyEnd);
-            
-            // Find value
-            int valueStart = objContent.indexOf("\"", keyEnd + 1);
-            if (valueStart == -1) break;
-            
-            int valueEnd = objContent.indexOf("\"", valueStart + 1);
-            if (valueEnd == -1) break;
-            
-            String value = objContent.substring(valueStart + 1, valueEnd);
-            
-            try {
-                UUID playerId = UUID.fromString(key);
-                target.put(playerId, value);
-            } catch (IllegalArgumentException ignored) {
-                // Skip invalid UUIDs
-            }
-            
-            index = valueEnd + 1;
-        }
+
+    /**
+     * Sets the numeric Kick broadcaster ID used to route Kick webhooks to a player.
+     * 
+     * @param playerId The player's UUID
+     * @param broadcasterId The Kick broadcaster ID
+     */
+    public void setKickBroadcasterId(UUID playerId, String broadcasterId) {
+        update(playerId, current -> current.withKickBroadcasterId(broadcasterId));
     }
-    
-    private String toJson() {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\n");
-        
-        // Write enabledPlayers array
-        sb.append("  \"enabledPlayers\": [\n");
-        int i = 0;
-        for (UUID uuid : enabledPlayers) {
-            sb.append("    \"").append(uuid.toString()).append("\"");
-            if (i < enabledPlayers.size() - 1) {
-                sb.append(",");
-            }
-            sb.append("\n");
-            i++;
-        }
-        sb.append("  ],\n");
-        
-        // Write broadcastIds object
-        sb.append("  \"broadcastIds\": {\n");
-        i = 0;
-        for (Map.Entry<UUID, String> entry : playerBroadcastIds.entrySet()) {
-            sb.append("    \"").append(entry.getKey().toString()).append("\": \"")
-              .append(entry.getValue()).append("\"");
-            if (i < playerBroadcastIds.size() - 1) {
-                sb.append(",");
-            }
-            sb.append("\n");
-            i++;
-        }
-        sb.append("  },\n");
 
-        // Write chatIds object
-        sb.append("  \"chatIds\": {\n");
-        i = 0;
-        for (Map.Entry<UUID, String> entry : playerChatIds.entrySet()) {
-            sb.append("    \"").append(entry.getKey().toString()).append("\": \"")
-              .append(entry.getValue()).append("\"");
-            if (i < playerChatIds.size() - 1) {
-                sb.append(",");
-            }
-            sb.append("\n");
-            i++;
-        }
-        sb.append("  }\n");
-        
-        sb.append("}");
-        return sb.toString();
+    /**
+     * Checks if a player has a Kick broadcaster ID configured.
+     * 
+     * @param playerId The player's UUID
+     * @return true if the player has a Kick broadcaster ID
+     */
+    public boolean hasKickBroadcasterId(UUID playerId) {
+        return getKickBroadcasterId(playerId) != null;
     }
 }
@@ -0,0 +1,71 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Server-owner settings read from config.properties in the plugin data folder.
+ * Every setting has a default, so the file only needs the keys being changed.
+ */
+public class ConfigManager {
+
+    private final Path configFile;
+    private final Properties properties = new Properties();
+
+    public ConfigManager(Path dataFolder) {
+        this.configFile = dataFolder.resolve("config.properties");
+    }
+
+    public void load() {
+        if (!Files.exists(configFile)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(configFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+            System.out.println("[HyStreamerAlerts] Loaded " + properties.size() + " config settings");
+        } catch (IOException e) {
+            System.out.println("[HyStreamerAlerts] Failed to load config: " + e.getMessage());
+        }
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.out.println("[HyStreamerAlerts] Invalid number for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        try {
+            return Long.parseLong(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.out.println("[HyStreamerAlerts] Invalid number for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public double getDouble(String key, double defaultValue) {
+        try {
+            return Double.parseDouble(getString(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            System.out.println("[HyStreamerAlerts] Invalid number for " + key + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        return Boolean.parseBoolean(getString(key, String.valueOf(defaultValue)));
+    }
+}
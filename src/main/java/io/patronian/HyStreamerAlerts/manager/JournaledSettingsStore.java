@@ -0,0 +1,149 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Default settings store: all players in memory, persisted as an alerts.json snapshot plus an
+ * append-only journal of changes (alerts.journal).
+ *
+ * Each change appends one small record to the journal on the next flush, so a save costs
+ * O(changes) whatever the number of players. Once the journal holds enough records it is
+ * compacted: the snapshot is streamed to a temp file that is fsynced and atomically moved
+ * over alerts.json, and the journal starts over. Loading reads the snapshot and replays the
+ * journal on top.
+ */
+public class JournaledSettingsStore implements SettingsStore {
+
+    private final Path dataFile;
+    private final Path tempFile;
+    private final Path journalFile;
+    private final SettingsJournal journal;
+    private final long compactAfterRecords;
+    private final Map<UUID, PlayerSettings> settings = new ConcurrentHashMap<>();
+    private boolean compactionNeeded;
+    private long snapshotGeneration;
+
+    /**
+     * @param compactAfterRecords Journal records after which the snapshot is rewritten
+     */
+    public JournaledSettingsStore(Path dataFolder, long compactAfterRecords) {
+        this.dataFile = dataFolder.resolve("alerts.json");
+        this.tempFile = dataFolder.resolve("alerts.json.tmp");
+        this.journalFile = dataFolder.resolve("alerts.journal");
+        this.journal = new SettingsJournal(journalFile);
+        this.compactAfterRecords = Math.max(1, compactAfterRecords);
+    }
+
+    /**
+     * True if there are saved settings to load, e.g. for migrating to another backend.
+     */
+    public boolean exists() {
+        return Files.exists(dataFile) || Files.exists(journalFile);
+    }
+
+    @Override
+    public synchronized void load() throws IOException {
+        if (Files.exists(dataFile)) {
+            settings.clear();
+            try {
+                snapshotGeneration = SettingsJson.read(dataFile, settings);
+            } catch (JsonReader.MalformedJsonException e) {
+                // Keep the broken file for inspection rather than overwriting it on the next save
+                Path broken = dataFile.resolveSibling(dataFile.getFileName() + ".bad");
+                System.out.println("[HyStreamerAlerts] alerts.json is unreadable (" + e.getMessage()
+                        + "), moved it to " + broken.getFileName());
+                Files.move(dataFile, broken, StandardCopyOption.REPLACE_EXISTING);
+                settings.clear();
+                snapshotGeneration = 0;
+            }
+        }
+        Files.createDirectories(dataFile.getParent());
+        long replayed = journal.open(snapshotGeneration, this::applyLoaded);
+        if (replayed > 0) {
+            System.out.println("[HyStreamerAlerts] Replayed " + replayed + " settings journal records");
+        }
+        System.out.println("[HyStreamerAlerts] Loaded " + settings.size() + " player alert settings");
+    }
+
+    private void applyLoaded(UUID playerId, PlayerSettings playerSettings) {
+        if (playerSettings.isEmpty()) {
+            settings.remove(playerId);
+        } else {
+            settings.put(playerId, playerSettings);
+        }
+    }
+
+    @Override
+    public PlayerSettings get(UUID playerId) {
+        return settings.get(playerId);
+    }
+
+    @Override
+    public synchronized void put(UUID playerId, PlayerSettings playerSettings) {
+        applyLoaded(playerId, playerSettings);
+        journal.append(playerId, playerSettings);
+    }
+
+    @Override
+    public void forEach(BiConsumer<UUID, PlayerSettings> action) {
+        settings.forEach(action);
+    }
+
+    @Override
+    public int size() {
+        return settings.size();
+    }
+
+    /**
+     * Appends pending changes, compacting the journal into the snapshot when it is due.
+     */
+    @Override
+    public void flush() throws IOException {
+        Files.createDirectories(dataFile.getParent());
+        try {
+            if (!journal.isOpen() || compactionNeeded) {
+                compact();
+                return;
+            }
+            journal.writePending();
+            if (journal.getRecordCount() >= compactAfterRecords) {
+                compact();
+            }
+        } catch (IOException e) {
+            // Records taken from the queue may be lost, so the retry rewrites the whole snapshot
+            compactionNeeded = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Rewrites the snapshot with the current state and starts a new, empty journal.
+     */
+    private void compact() throws IOException {
+        long nextGeneration = snapshotGeneration + 1;
+        synchronized (this) {
+            // Everything queued is part of this snapshot. Later changes may or may not make it
+            // into the file, but are journaled against the new generation either way.
+            journal.discardPending();
+        }
+        SettingsJson.writeFile(tempFile, dataFile, settings, nextGeneration);
+        snapshotGeneration = nextGeneration;
+        compactionNeeded = false;
+        // A crash before this point leaves an older-generation journal, which load() ignores
+        if (journal.isOpen()) {
+            journal.reset(nextGeneration);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+}
@@ -0,0 +1,233 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Pull parser for JSON text read in chunks from a {@link Reader}.
+ *
+ * Only the current chunk and the string being decoded are held in memory; both buffers are
+ * reused for the whole document. Callers walk the structure themselves:
+ * <pre>
+ * reader.expect('{');
+ * while (reader.hasNext('}')) {
+ *     String name = reader.nextString();
+ *     reader.expect(':');
+ *     ...
+ * }
+ * </pre>
+ */
+final class JsonReader {
+
+    private static final int BUFFER_CHARS = 8192;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private final StringBuilder text = new StringBuilder();
+    private int position;
+    private int limit;
+    private long consumed;
+
+    JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Consumes the next non-whitespace character, which must be {@code expected}.
+     */
+    void expect(char expected) throws IOException {
+        int c = nextNonWhitespace();
+        if (c != expected) {
+            throw syntaxError("expected '" + expected + "' but found " + describe(c));
+        }
+    }
+
+    /**
+     * Moves to the next element of an object or array.
+     *
+     * @param close The closing '}' or ']'
+     * @return false, with the closing character consumed, once there are no more elements
+     */
+    boolean hasNext(char close) throws IOException {
+        int c = peekNonWhitespace();
+        if (c == ',') {
+            position++;
+            c = peekNonWhitespace();
+        }
+        if (c == close) {
+            position++;
+            return false;
+        }
+        if (c == -1) {
+            throw syntaxError("unterminated " + (close == '}' ? "object" : "array"));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next character that is not whitespace without consuming it, or -1 at the end.
+     */
+    int peek() throws IOException {
+        return peekNonWhitespace();
+    }
+
+    String nextString() throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            // Copy unescaped runs straight from the buffer
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\') break;
+                if (c < 0x20) throw syntaxError("unescaped control character in string");
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            if (position == limit) {
+                if (!fill()) throw syntaxError("unterminated string");
+                continue;
+            }
+
+            char c = buffer[position++];
+            if (c == '"') {
+                return text.toString();
+            }
+            text.append(readEscape());
+        }
+    }
+
+    long nextLong() throws IOException {
+        int c = peekNonWhitespace();
+        text.setLength(0);
+        if (c == '-') {
+            text.append('-');
+            position++;
+        }
+        while (true) {
+            if (position == limit && !fill()) break;
+            char digit = buffer[position];
+            if (digit < '0' || digit > '9') break;
+            text.append(digit);
+            position++;
+        }
+        try {
+            return Long.parseLong(text, 0, text.length(), 10);
+        } catch (NumberFormatException e) {
+            throw syntaxError("expected a whole number");
+        }
+    }
+
+    /**
+     * Skips one value of any type, including nested objects and arrays.
+     */
+    void skipValue() throws IOException {
+        int c = peekNonWhitespace();
+        switch (c) {
+            case '"':
+                nextString();
+                break;
+            case '{':
+                position++;
+                while (hasNext('}')) {
+                    nextString();
+                    expect(':');
+                    skipValue();
+                }
+                break;
+            case '[':
+                position++;
+                while (hasNext(']')) {
+                    skipValue();
+                }
+                break;
+            case -1:
+                throw syntaxError("expected a value");
+            default:
+                // Number, true, false or null
+                while (true) {
+                    if (position == limit && !fill()) return;
+                    char next = buffer[position];
+                    if (next == ',' || next == '}' || next == ']' || Character.isWhitespace(next)) return;
+                    position++;
+                }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) throw syntaxError("bad \\u escape");
+                    value = (value << 4) | digit;
+                }
+                return (char) value;
+            default:
+                throw syntaxError("bad escape " + describe(c));
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = peekNonWhitespace();
+        if (c != -1) position++;
+        return c;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) return -1;
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            position++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        position = 0;
+        limit = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        limit = read;
+        return true;
+    }
+
+    private MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + " at offset " + (consumed + position));
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+
+    /**
+     * The input is not valid JSON, or not in the expected shape.
+     */
+    static final class MalformedJsonException extends IOException {
+        MalformedJsonException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes JSON string literals with full escaping. Structure is written by the caller.
+ */
+final class JsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    JsonWriter raw(String text) throws IOException {
+        out.write(text);
+        return this;
+    }
+
+    /**
+     * Writes the value as a quoted JSON string.
+     */
+    JsonWriter string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            String escape;
+            switch (c) {
+                case '"':
+                    escape = "\\\"";
+                    break;
+                case '\\':
+                    escape = "\\\\";
+                    break;
+                case '\n':
+                    escape = "\\n";
+                    break;
+                case '\r':
+                    escape = "\\r";
+                    break;
+                case '\t':
+                    escape = "\\t";
+                    break;
+                default:
+                    // Other control characters, and the separators JavaScript treats as line ends
+                    if (c >= 0x20 && c != '\u2028' && c != '\u2029') continue;
+                    escape = null;
+                    break;
+            }
+            // Unescaped runs are written in one call
+            out.write(value, start, i - start);
+            if (escape != null) {
+                out.write(escape);
+            } else {
+                out.write("\\u");
+                out.write(HEX[(c >> 12) & 0xF]);
+                out.write(HEX[(c >> 8) & 0xF]);
+                out.write(HEX[(c >> 4) & 0xF]);
+                out.write(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+        return this;
+    }
+}
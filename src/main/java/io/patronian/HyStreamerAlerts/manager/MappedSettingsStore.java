@@ -0,0 +1,508 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Settings store for very large player counts: fixed-width binary records in a memory-mapped
+ * file (settings.dat), looked up through an open-addressing index.
+ *
+ * File layout: a 64-byte header, a record region of {@code capacity} 48-byte records
+ * (UUID as two longs, a flags word, and three string references), then a string region of
+ * UTF-8 bytes. A string reference packs the offset into the string region and the length
+ * into one long; 0 means no value. Opening the store only scans the record region to build
+ * the index, so startup does no parsing, and settings stay in the page cache rather than the
+ * heap. Decoded records are cached for the players actually being looked up.
+ *
+ * Changes are written into the mapping in place. The OS writes dirty pages back in whatever
+ * order it likes, so a crash can leave a record pointing at strings that never reached the
+ * disk; {@link #load} therefore checks every string reference against the string region and
+ * drops records that point outside it. When the record region is full, or too much of the
+ * string region is dead, the whole file is rewritten to a temp file and moved into place.
+ *
+ * A mapping is only released when its buffer is garbage collected, and Windows refuses to
+ * replace a file that is still mapped. There the rewrite fails: compaction is skipped and
+ * logged, and a store whose record region is full cannot take new players. Use another
+ * backend on Windows.
+ */
+public class MappedSettingsStore implements SettingsStore {
+
+    private static final int MAGIC = 0x48534153; // "HSAS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 48;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_STRING_BYTES = 64 * 1024;
+
+    // Header fields
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_CAPACITY = 8;
+    private static final int H_HIGH_WATER = 12;
+    private static final int H_STRINGS_END = 16;
+
+    // Record fields
+    private static final int R_MSB = 0;
+    private static final int R_LSB = 8;
+    private static final int R_FLAGS = 16;
+    private static final int R_BROADCAST = 24;
+    private static final int R_CHAT = 32;
+    private static final int R_KICK = 40;
+
+    private static final int FLAG_LIVE = 1;
+    private static final int FLAG_ENABLED = 1 << 1;
+
+    private final Path file;
+    private final Path tempFile;
+    private final int cacheLimit;
+    private final Map<UUID, PlayerSettings> cache = new ConcurrentHashMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int highWater;
+    private long stringsEnd;
+    private long stringBytesDead;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private final SlotIndex index = new SlotIndex();
+
+    /**
+     * @param cacheLimit Decoded records kept on the heap for fast lookups
+     */
+    public MappedSettingsStore(Path dataFolder, int cacheLimit) {
+        this.file = dataFolder.resolve("settings.dat");
+        this.tempFile = dataFolder.resolve("settings.dat.tmp");
+        this.cacheLimit = Math.max(16, cacheLimit);
+    }
+
+    @Override
+    public synchronized void load() throws IOException {
+        Files.createDirectories(file.getParent());
+        if (!Files.exists(file)) {
+            writeFile(file, INITIAL_CAPACITY, new int[0]);
+        }
+        open();
+        System.out.println("[HyStreamerAlerts] Loaded " + index.size() + " player alert settings");
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        if (buffer.capacity() < HEADER_BYTES
+                || buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != VERSION) {
+            channel.close();
+            throw new IOException("settings.dat is not a settings file");
+        }
+        capacity = buffer.getInt(H_CAPACITY);
+        highWater = buffer.getInt(H_HIGH_WATER);
+        stringsEnd = buffer.getLong(H_STRINGS_END);
+        if (capacity <= 0 || highWater < 0 || highWater > capacity
+                || (long) HEADER_BYTES + (long) capacity * RECORD_BYTES > buffer.capacity()) {
+            channel.close();
+            throw new IOException("settings.dat has a damaged header");
+        }
+        // Strings written after the last header update are lost either way
+        stringsEnd = Math.max(0, Math.min(stringsEnd, buffer.capacity() - stringsStart()));
+        stringBytesDead = 0;
+        freeCount = 0;
+        index.clear();
+        cache.clear();
+
+        long liveStringBytes = 0;
+        int damaged = 0;
+        for (int slot = 0; slot < highWater; slot++) {
+            int base = recordOffset(slot);
+            if ((buffer.getInt(base + R_FLAGS) & FLAG_LIVE) == 0) {
+                pushFree(slot);
+                continue;
+            }
+            long broadcastRef = buffer.getLong(base + R_BROADCAST);
+            long chatRef = buffer.getLong(base + R_CHAT);
+            long kickRef = buffer.getLong(base + R_KICK);
+            if (!isValidRef(broadcastRef) || !isValidRef(chatRef) || !isValidRef(kickRef)) {
+                // Torn by a crash; the player starts over rather than the whole store failing
+                buffer.putInt(base + R_FLAGS, 0);
+                pushFree(slot);
+                damaged++;
+                continue;
+            }
+            index.put(buffer.getLong(base + R_MSB), buffer.getLong(base + R_LSB), slot);
+            liveStringBytes += refLength(broadcastRef) + refLength(chatRef) + refLength(kickRef);
+        }
+        stringBytesDead = stringsEnd - liveStringBytes;
+        if (damaged > 0) {
+            System.out.println("[HyStreamerAlerts] Dropped " + damaged + " damaged player settings from settings.dat");
+        }
+    }
+
+    /**
+     * @return Whether the reference is empty or lies entirely within the written string region
+     */
+    private boolean isValidRef(long ref) {
+        if (ref == 0) return true;
+        int offset = refOffset(ref);
+        int length = refLength(ref);
+        return offset >= 0 && length >= 0 && (long) offset + length <= stringsEnd;
+    }
+
+    @Override
+    public PlayerSettings get(UUID playerId) {
+        PlayerSettings cached = cache.get(playerId);
+        if (cached != null) return cached;
+
+        synchronized (this) {
+            int slot = index.get(playerId.getMostSignificantBits(), playerId.getLeastSignificantBits());
+            if (slot < 0) return null;
+            PlayerSettings decoded = decode(slot);
+            if (cache.size() >= cacheLimit) cache.clear();
+            cache.put(playerId, decoded);
+            return decoded;
+        }
+    }
+
+    @Override
+    public synchronized void put(UUID playerId, PlayerSettings settings) {
+        long msb = playerId.getMostSignificantBits();
+        long lsb = playerId.getLeastSignificantBits();
+        int slot = index.get(msb, lsb);
+
+        if (settings.isEmpty()) {
+            cache.remove(playerId);
+            if (slot >= 0) {
+                int base = recordOffset(slot);
+                buffer.putInt(base + R_FLAGS, 0);
+                releaseStrings(base);
+                index.remove(msb, lsb);
+                pushFree(slot);
+            }
+            return;
+        }
+
+        try {
+            if (slot < 0) {
+                if (freeCount == 0 && highWater == capacity) {
+                    rewrite(capacity * 2);
+                }
+                slot = freeCount > 0 ? freeSlots[--freeCount] : highWater++;
+                buffer.putInt(H_HIGH_WATER, highWater);
+                int base = recordOffset(slot);
+                buffer.putInt(base + R_FLAGS, 0);
+                buffer.putLong(base + R_BROADCAST, 0);
+                buffer.putLong(base + R_CHAT, 0);
+                buffer.putLong(base + R_KICK, 0);
+                buffer.putLong(base + R_MSB, msb);
+                buffer.putLong(base + R_LSB, lsb);
+                index.put(msb, lsb, slot);
+            }
+
+            int base = recordOffset(slot);
+            long broadcastRef = storeString(buffer.getLong(base + R_BROADCAST), settings.broadcastId());
+            long chatRef = storeString(buffer.getLong(base + R_CHAT), settings.chatId());
+            long kickRef = storeString(buffer.getLong(base + R_KICK), settings.kickBroadcasterId());
+            buffer.putLong(base + R_BROADCAST, broadcastRef);
+            buffer.putLong(base + R_CHAT, chatRef);
+            buffer.putLong(base + R_KICK, kickRef);
+            // No crash ordering is implied here; open() validates the references instead
+            buffer.putInt(base + R_FLAGS, FLAG_LIVE | (settings.enabled() ? FLAG_ENABLED : 0));
+            cache.put(playerId, settings);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void forEach(BiConsumer<UUID, PlayerSettings> action) {
+        for (int slot = 0; slot < highWater; slot++) {
+            int base = recordOffset(slot);
+            if ((buffer.getInt(base + R_FLAGS) & FLAG_LIVE) == 0) continue;
+            action.accept(new UUID(buffer.getLong(base + R_MSB), buffer.getLong(base + R_LSB)), decode(slot));
+        }
+    }
+
+    @Override
+    public synchronized int size() {
+        return index.size();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        MappedByteBuffer mapping;
+        synchronized (this) {
+            if (buffer == null) return;
+            long liveStringBytes = stringsEnd - stringBytesDead;
+            if (stringBytesDead > Math.max(1024 * 1024, liveStringBytes)) {
+                try {
+                    rewrite(capacity);
+                } catch (IOException e) {
+                    // The store keeps working from the current file, just less compactly
+                    System.out.println("[HyStreamerAlerts] Failed to compact settings.dat: " + e.getMessage());
+                }
+            }
+            mapping = buffer;
+        }
+        // Outside the lock so lookups are not held up by the disk
+        mapping.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) buffer.force();
+        if (channel != null) channel.close();
+        buffer = null;
+    }
+
+    private PlayerSettings decode(int slot) {
+        int base = recordOffset(slot);
+        int flags = buffer.getInt(base + R_FLAGS);
+        return new PlayerSettings((flags & FLAG_ENABLED) != 0,
+                readString(buffer.getLong(base + R_BROADCAST)),
+                readString(buffer.getLong(base + R_CHAT)),
+                readString(buffer.getLong(base + R_KICK)));
+    }
+
+    private int recordOffset(int slot) {
+        return HEADER_BYTES + slot * RECORD_BYTES;
+    }
+
+    private int stringsStart() {
+        return HEADER_BYTES + capacity * RECORD_BYTES;
+    }
+
+    private String readString(long ref) {
+        if (ref == 0) return null;
+        byte[] bytes = new byte[refLength(ref)];
+        buffer.get(stringsStart() + refOffset(ref), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a reference to the value, reusing the current one if it is unchanged.
+     */
+    private long storeString(long currentRef, String value) throws IOException {
+        if (value == null) {
+            stringBytesDead += refLength(currentRef);
+            return 0;
+        }
+        if (currentRef != 0 && value.equals(readString(currentRef))) {
+            return currentRef;
+        }
+        stringBytesDead += refLength(currentRef);
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureStringRoom(bytes.length);
+        long offset = stringsEnd;
+        buffer.put((int) (stringsStart() + offset), bytes);
+        stringsEnd += bytes.length;
+        buffer.putLong(H_STRINGS_END, stringsEnd);
+        return (offset << 32) | bytes.length;
+    }
+
+    private void releaseStrings(int base) {
+        stringBytesDead += refLength(buffer.getLong(base + R_BROADCAST))
+                + refLength(buffer.getLong(base + R_CHAT)) + refLength(buffer.getLong(base + R_KICK));
+    }
+
+    private void ensureStringRoom(int needed) throws IOException {
+        long required = stringsStart() + stringsEnd + needed;
+        if (required <= buffer.capacity()) return;
+        long size = buffer.capacity();
+        while (size < required) size *= 2;
+        if (size > Integer.MAX_VALUE) throw new IOException("settings.dat is full");
+        // Mapping past the end of the file extends it
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length) freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    private static int refLength(long ref) {
+        return (int) (ref & 0xFFFFFFFFL);
+    }
+
+    private static int refOffset(long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    /**
+     * Writes the live records into a fresh file with the given capacity and swaps it in. If
+     * the file cannot be replaced (Windows, while the current mapping is alive) the current
+     * file and mapping stay in use.
+     */
+    private void rewrite(int newCapacity) throws IOException {
+        int[] liveSlots = new int[index.size()];
+        int count = 0;
+        for (int slot = 0; slot < highWater; slot++) {
+            if ((buffer.getInt(recordOffset(slot) + R_FLAGS) & FLAG_LIVE) != 0) liveSlots[count++] = slot;
+        }
+        writeFile(tempFile, Math.max(newCapacity, count), Arrays.copyOf(liveSlots, count));
+        buffer.force();
+        try {
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw new IOException("could not replace settings.dat while it is mapped: " + e.getMessage(), e);
+        }
+        // The old mapping stays valid until collected, but nothing uses it past this point
+        channel.close();
+        open();
+    }
+
+    /**
+     * Writes a complete, fsynced settings file holding the given slots of the current mapping.
+     */
+    private void writeFile(Path target, int fileCapacity, int[] slots) throws IOException {
+        int stringBytes = 0;
+        for (int slot : slots) {
+            int base = recordOffset(slot);
+            stringBytes += refLength(buffer.getLong(base + R_BROADCAST))
+                    + refLength(buffer.getLong(base + R_CHAT)) + refLength(buffer.getLong(base + R_KICK));
+        }
+        int recordsEnd = HEADER_BYTES + fileCapacity * RECORD_BYTES;
+        ByteBuffer image = ByteBuffer.allocate(recordsEnd + Math.max(INITIAL_STRING_BYTES, stringBytes * 2));
+
+        long end = 0;
+        for (int i = 0; i < slots.length; i++) {
+            int base = recordOffset(slots[i]);
+            int to = HEADER_BYTES + i * RECORD_BYTES;
+            image.putLong(to + R_MSB, buffer.getLong(base + R_MSB));
+            image.putLong(to + R_LSB, buffer.getLong(base + R_LSB));
+            image.putInt(to + R_FLAGS, buffer.getInt(base + R_FLAGS));
+            for (int field : new int[] {R_BROADCAST, R_CHAT, R_KICK}) {
+                long ref = buffer.getLong(base + field);
+                if (ref == 0) continue;
+                int length = refLength(ref);
+                image.put((int) (recordsEnd + end), buffer, stringsStart() + refOffset(ref), length);
+                image.putLong(to + field, (end << 32) | length);
+                end += length;
+            }
+        }
+        image.putInt(H_MAGIC, MAGIC);
+        image.putInt(H_VERSION, VERSION);
+        image.putInt(H_CAPACITY, fileCapacity);
+        image.putInt(H_HIGH_WATER, slots.length);
+        image.putLong(H_STRINGS_END, end);
+
+        try (FileChannel fileChannel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            image.rewind();
+            while (image.hasRemaining()) {
+                fileChannel.write(image);
+            }
+            fileChannel.force(true);
+        }
+    }
+
+    /**
+     * Open-addressing UUID to slot map with linear probing and backward-shift deletion.
+     */
+    private static final class SlotIndex {
+        private long[] msbs = new long[64];
+        private long[] lsbs = new long[64];
+        private int[] slots = new int[64]; // slot + 1; 0 marks an empty bucket
+        private int size;
+
+        int get(long msb, long lsb) {
+            int mask = slots.length - 1;
+            for (int i = bucket(msb, lsb, mask); ; i = (i + 1) & mask) {
+                if (slots[i] == 0) return -1;
+                if (msbs[i] == msb && lsbs[i] == lsb) return slots[i] - 1;
+            }
+        }
+
+        void put(long msb, long lsb, int slot) {
+            if ((size + 1) * 2 > slots.length) resize(slots.length * 2);
+            int mask = slots.length - 1;
+            for (int i = bucket(msb, lsb, mask); ; i = (i + 1) & mask) {
+                if (slots[i] == 0) {
+                    msbs[i] = msb;
+                    lsbs[i] = lsb;
+                    slots[i] = slot + 1;
+                    size++;
+                    return;
+                }
+                if (msbs[i] == msb && lsbs[i] == lsb) {
+                    slots[i] = slot + 1;
+                    return;
+                }
+            }
+        }
+
+        void remove(long msb, long lsb) {
+            int mask = slots.length - 1;
+            int i = bucket(msb, lsb, mask);
+            while (true) {
+                if (slots[i] == 0) return;
+                if (msbs[i] == msb && lsbs[i] == lsb) break;
+                i = (i + 1) & mask;
+            }
+            slots[i] = 0;
+            size--;
+            // Shift following entries back so lookups never stop at the hole too early
+            int hole = i;
+            for (int j = (hole + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+                int home = bucket(msbs[j], lsbs[j], mask);
+                boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+                if (movable) {
+                    msbs[hole] = msbs[j];
+                    lsbs[hole] = lsbs[j];
+                    slots[hole] = slots[j];
+                    slots[j] = 0;
+                    hole = j;
+                }
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            msbs = new long[64];
+            lsbs = new long[64];
+            slots = new int[64];
+            size = 0;
+        }
+
+        private void resize(int newLength) {
+            long[] oldMsbs = msbs;
+            long[] oldLsbs = lsbs;
+            int[] oldSlots = slots;
+            msbs = new long[newLength];
+            lsbs = new long[newLength];
+            slots = new int[newLength];
+            size = 0;
+            for (int i = 0; i < oldSlots.length; i++) {
+                if (oldSlots[i] != 0) put(oldMsbs[i], oldLsbs[i], oldSlots[i] - 1);
+            }
+        }
+
+        private static int bucket(long msb, long lsb, int mask) {
+            long h = msb ^ lsb;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return (int) h & mask;
+        }
+    }
+}
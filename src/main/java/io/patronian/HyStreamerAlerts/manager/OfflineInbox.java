@@ -0,0 +1,364 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+import io.patronian.HyStreamerAlerts.api.StreamEventType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Alerts that arrived while their streamer was offline, summed up per type until they rejoin
+ * and get a single digest line such as "While you were away: 14 follows, 3 subs, 1 raid".
+ *
+ * Each player only has a count and a total (gifted subs, raid viewers) per alert type, so an
+ * inbox stays the same size however many alerts it holds. The number of players with a
+ * pending inbox is capped; alerts for further players are dropped. Inboxes are written to
+ * inbox.dat in the background a little after they change, and expire after a configured age.
+ *
+ * File layout: magic, version, the alert type names in slot order, then per player the UUID,
+ * the time of their last alert, a bit mask of the slots in use and a count and total per slot.
+ */
+public class OfflineInbox {
+
+    private static final int MAGIC = 0x48534149;
+    private static final int VERSION = 1;
+    private static final StreamEventType[] SLOTS = {
+            StreamEventType.FOLLOW, StreamEventType.SUBSCRIBE, StreamEventType.GIFT_SUB,
+            StreamEventType.DONATION, StreamEventType.RAID
+    };
+
+    private final Path file;
+    private final Path tempFile;
+    private final int maxPlayers;
+    private final long maxAgeMillis;
+    private final long saveDelayMillis;
+    private final long digestDelayMillis;
+    private final Map<UUID, Inbox> inboxes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService worker;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean saveScheduled = new AtomicBoolean();
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param maxPlayers Players that can have a pending inbox at once
+     * @param maxAgeMillis How long after their last alert an inbox is kept
+     * @param saveDelayMillis How long after the first unsaved change the inboxes are written
+     * @param digestDelayMillis How long after joining the digest is sent, so it is not lost
+     *                          while the player is still loading in
+     */
+    public OfflineInbox(Path dataFolder, int maxPlayers, long maxAgeMillis, long saveDelayMillis,
+                        long digestDelayMillis) {
+        this.file = dataFolder.resolve("inbox.dat");
+        this.tempFile = dataFolder.resolve("inbox.dat.tmp");
+        this.maxPlayers = Math.max(1, maxPlayers);
+        this.maxAgeMillis = maxAgeMillis;
+        this.saveDelayMillis = Math.max(0, saveDelayMillis);
+        this.digestDelayMillis = Math.max(0, digestDelayMillis);
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "HyStreamerAlerts-Inbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads inbox.dat on the calling thread, skipping inboxes that have expired.
+     */
+    public void load() {
+        if (!Files.exists(file)) return;
+        long now = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("not an inbox file");
+            }
+            // Map the file's slots onto ours, in case alert types were added or removed
+            int[] slotMap = new int[in.readUnsignedByte()];
+            for (int i = 0; i < slotMap.length; i++) {
+                slotMap[i] = slotOf(typeNamed(in.readUTF()));
+            }
+
+            int players = in.readInt();
+            for (int i = 0; i < players; i++) {
+                UUID playerId = new UUID(in.readLong(), in.readLong());
+                Inbox inbox = new Inbox();
+                inbox.lastTimestamp = in.readLong();
+                int mask = in.readInt();
+                for (int slot = 0; slot < slotMap.length; slot++) {
+                    if ((mask & (1 << slot)) == 0) continue;
+                    int count = in.readInt();
+                    long total = in.readLong();
+                    if (slotMap[slot] < 0) continue;
+                    inbox.counts[slotMap[slot]] += count;
+                    inbox.totals[slotMap[slot]] += total;
+                }
+                if (now - inbox.lastTimestamp < maxAgeMillis && inboxes.size() < maxPlayers) {
+                    inboxes.put(playerId, inbox);
+                }
+            }
+            System.out.println("[HyStreamerAlerts] Loaded offline alerts for " + inboxes.size() + " players");
+        } catch (IOException e) {
+            System.out.println("[HyStreamerAlerts] Failed to load offline alerts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds an alert to a player's inbox. Safe to call from any thread.
+     */
+    public void add(UUID playerId, StreamEvent event) {
+        int slot = slotOf(event.getType());
+        if (slot < 0) return;
+        Inbox updated = inboxes.compute(playerId, (id, inbox) -> {
+            if (inbox == null) {
+                if (inboxes.size() >= maxPlayers) return null;
+                inbox = new Inbox();
+            }
+            inbox.add(slot, event);
+            return inbox;
+        });
+        if (updated == null) {
+            dropped.increment();
+            return;
+        }
+        stored.increment();
+        markDirty();
+    }
+
+    public boolean has(UUID playerId) {
+        return inboxes.containsKey(playerId);
+    }
+
+    /**
+     * Removes a player's inbox and sums it up.
+     *
+     * @return The digest line, or null if nothing arrived while they were away
+     */
+    public String takeDigest(UUID playerId) {
+        Inbox inbox = inboxes.remove(playerId);
+        if (inbox == null) return null;
+        markDirty();
+        synchronized (inbox) {
+            if (System.currentTimeMillis() - inbox.lastTimestamp >= maxAgeMillis) return null;
+            return inbox.digest();
+        }
+    }
+
+    /**
+     * Sends a joining player their digest once the digest delay has passed, if they are
+     * still online by then; otherwise the inbox waits for their next join.
+     *
+     * @param player Looks the player up when the digest is due
+     */
+    public void deliverLater(UUID playerId, Supplier<PlayerRef> player, BiConsumer<PlayerRef, String> send) {
+        if (!inboxes.containsKey(playerId)) return;
+        try {
+            worker.schedule(() -> {
+                PlayerRef current = player.get();
+                if (current == null) return;
+                String digest = takeDigest(playerId);
+                if (digest != null) send.accept(current, digest);
+            }, digestDelayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the inbox is saved and delivered after the restart
+        }
+    }
+
+    /**
+     * Writes pending changes now.
+     */
+    public void save() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        inboxes.values().removeIf(inbox -> now - inbox.lastTimestamp >= maxAgeMillis);
+        try {
+            write();
+        } catch (IOException e) {
+            // Keep the changes pending so the next save or shutdown retries
+            dirty.set(true);
+            System.out.println("[HyStreamerAlerts] Failed to save offline alerts: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops the background writer and saves any pending changes.
+     */
+    public void shutdown() {
+        worker.shutdown();
+        try {
+            worker.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        save();
+    }
+
+    public int getPendingPlayers() {
+        return inboxes.size();
+    }
+
+    public long getStoredCount() {
+        return stored.sum();
+    }
+
+    /**
+     * Alerts not kept because the inbox was full.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    private void write() throws IOException {
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(SLOTS.length);
+            for (StreamEventType type : SLOTS) {
+                out.writeUTF(type.name());
+            }
+
+            // The count is patched in afterwards, as inboxes may come and go while writing
+            long countPosition = out.size();
+            out.writeInt(0);
+            int players = 0;
+            for (Map.Entry<UUID, Inbox> entry : inboxes.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                entry.getValue().writeTo(out);
+                players++;
+            }
+            out.flush();
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, players), countPosition);
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void markDirty() {
+        dirty.set(true);
+        if (saveScheduled.compareAndSet(false, true)) {
+            try {
+                worker.schedule(() -> {
+                    saveScheduled.set(false);
+                    save();
+                }, saveDelayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: the final save picks the change up
+                saveScheduled.set(false);
+            }
+        }
+    }
+
+    private static int slotOf(StreamEventType type) {
+        for (int i = 0; i < SLOTS.length; i++) {
+            if (SLOTS[i] == type) return i;
+        }
+        return -1;
+    }
+
+    private static StreamEventType typeNamed(String name) {
+        try {
+            return StreamEventType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One player's pending alerts. Changed only inside {@code inboxes.compute}, and read by
+     * the writer while locked.
+     */
+    private static final class Inbox {
+        final int[] counts = new int[SLOTS.length];
+        final long[] totals = new long[SLOTS.length];
+        long lastTimestamp;
+
+        synchronized void add(int slot, StreamEvent event) {
+            // A coalesced burst, e.g. one restored from the spill file, stands for all its alerts
+            counts[slot] = (int) Math.min(Integer.MAX_VALUE, (long) counts[slot] + Math.max(1, event.getMergedCount()));
+            totals[slot] += Math.max(0, event.getCount());
+            lastTimestamp = Math.max(lastTimestamp, event.getTimestamp());
+        }
+
+        synchronized void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(lastTimestamp);
+            int mask = 0;
+            for (int slot = 0; slot < SLOTS.length; slot++) {
+                if (counts[slot] > 0) mask |= 1 << slot;
+            }
+            out.writeInt(mask);
+            for (int slot = 0; slot < SLOTS.length; slot++) {
+                if (counts[slot] == 0) continue;
+                out.writeInt(counts[slot]);
+                out.writeLong(totals[slot]);
+            }
+        }
+
+        String digest() {
+            StringBuilder parts = new StringBuilder();
+            for (int slot = 0; slot < SLOTS.length; slot++) {
+                int count = counts[slot];
+                if (count == 0) continue;
+                if (parts.length() > 0) parts.append(", ");
+                switch (SLOTS[slot]) {
+                    case FOLLOW:
+                        parts.append(plural(count, "follow"));
+                        break;
+                    case SUBSCRIBE:
+                        parts.append(plural(count, "sub"));
+                        break;
+                    case GIFT_SUB:
+                        parts.append(plural(Math.max(count, totals[slot]), "gifted sub"));
+                        break;
+                    case DONATION:
+                        parts.append(plural(count, "donation"));
+                        break;
+                    case RAID:
+                        parts.append(plural(count, "raid"));
+                        if (totals[slot] > 0) parts.append(" (").append(plural(totals[slot], "viewer")).append(')');
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (parts.length() == 0) return null;
+            return "\u00A76[Alert] \u00A7eWhile you were away: " + parts;
+        }
+
+        private static String plural(long count, String noun) {
+            return count + " " + noun + (count == 1 ? "" : "s");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+/**
+ * One player's alert settings. Immutable: changes produce a new instance that replaces the
+ * old one, so readers on any thread always see a consistent record without locking.
+ *
+ * @param enabled Whether alerts are on
+ * @param broadcastId Botrix broadcast ID, or null
+ * @param chatId Botrix chat ID(s), or null
+ * @param kickBroadcasterId Numeric Kick broadcaster ID, or null
+ */
+public record PlayerSettings(boolean enabled, String broadcastId, String chatId, String kickBroadcasterId) {
+
+    public static final PlayerSettings EMPTY = new PlayerSettings(false, null, null, null);
+
+    public PlayerSettings withEnabled(boolean enabled) {
+        return new PlayerSettings(enabled, broadcastId, chatId, kickBroadcasterId);
+    }
+
+    public PlayerSettings withBroadcastId(String broadcastId) {
+        return new PlayerSettings(enabled, emptyToNull(broadcastId), chatId, kickBroadcasterId);
+    }
+
+    public PlayerSettings withChatId(String chatId) {
+        return new PlayerSettings(enabled, broadcastId, emptyToNull(chatId), kickBroadcasterId);
+    }
+
+    public PlayerSettings withKickBroadcasterId(String kickBroadcasterId) {
+        return new PlayerSettings(enabled, broadcastId, chatId, emptyToNull(kickBroadcasterId));
+    }
+
+    /**
+     * True if nothing is set, in which case the player needs no entry at all.
+     */
+    public boolean isEmpty() {
+        return !enabled && broadcastId == null && chatId == null && kickBroadcasterId == null;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,212 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of player settings changes.
+ *
+ * File layout: an 8-byte generation, then records of [int length][int crc32][payload], where
+ * the payload is the player's UUID and their complete new settings. Replaying the records in
+ * order over the snapshot they were written against restores the latest state; a record
+ * with a bad length or checksum ends the replay and is cut off, since only the tail can be
+ * torn by a crash. The generation ties the journal to one snapshot so a journal that was
+ * already compacted into a newer snapshot is never replayed over it.
+ */
+class SettingsJournal {
+
+    private static final int HEADER_BYTES = Long.BYTES;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private static final int FLAG_ENABLED = 1;
+    private static final int FLAG_BROADCAST_ID = 1 << 1;
+    private static final int FLAG_CHAT_ID = 1 << 2;
+    private static final int FLAG_KICK_ID = 1 << 3;
+
+    private final Path file;
+    private final List<byte[]> pending = new ArrayList<>();
+    private FileChannel channel;
+    private long generation;
+    private long recordCount;
+
+    SettingsJournal(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the journal and replays it if it belongs to the given snapshot generation;
+     * otherwise starts it over for that generation.
+     * @return Number of records replayed
+     */
+    long open(long snapshotGeneration, BiConsumer<UUID, PlayerSettings> apply) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_BYTES) {
+            reset(snapshotGeneration);
+            return 0;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        channel.read(header, 0);
+        long journalGeneration = header.flip().getLong();
+        if (journalGeneration != snapshotGeneration) {
+            // Already folded into the snapshot by a compaction that finished writing it
+            reset(snapshotGeneration);
+            return 0;
+        }
+        generation = journalGeneration;
+
+        long validEnd = HEADER_BYTES;
+        channel.position(HEADER_BYTES);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        CRC32 crc = new CRC32();
+        try {
+            while (true) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) break;
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) break;
+
+                try {
+                    decode(payload, apply);
+                } catch (IOException e) {
+                    break;
+                }
+                validEnd += 2L * Integer.BYTES + length;
+                recordCount++;
+            }
+        } catch (EOFException e) {
+            // Clean end, or a record torn mid-write
+        }
+
+        if (validEnd < channel.size()) {
+            System.out.println("[HyStreamerAlerts] Skipped corrupt settings journal tail ("
+                    + (channel.size() - validEnd) + " bytes)");
+            channel.truncate(validEnd);
+        }
+        channel.position(validEnd);
+        return recordCount;
+    }
+
+    /**
+     * Queues a change; it reaches the disk with the next {@link #writePending()}.
+     */
+    synchronized void append(UUID playerId, PlayerSettings settings) {
+        pending.add(encode(playerId, settings));
+    }
+
+    /**
+     * Discards queued changes, e.g. because a snapshot that includes them is being written.
+     */
+    synchronized void discardPending() {
+        pending.clear();
+    }
+
+    /**
+     * Appends the queued changes and fsyncs once for all of them.
+     * @return Number of records written
+     */
+    int writePending() throws IOException {
+        List<byte[]> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) return 0;
+            batch = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        int size = 0;
+        for (byte[] payload : batch) size += 2 * Integer.BYTES + payload.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (byte[] payload : batch) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        recordCount += batch.size();
+        return batch.size();
+    }
+
+    /**
+     * Empties the journal and ties it to a new snapshot generation.
+     */
+    void reset(long newGeneration) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putLong(newGeneration);
+        header.flip();
+        channel.write(header, 0);
+        channel.force(true);
+        channel.position(HEADER_BYTES);
+        generation = newGeneration;
+        recordCount = 0;
+    }
+
+    boolean isOpen() {
+        return channel != null && channel.isOpen();
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    long getRecordCount() {
+        return recordCount;
+    }
+
+    void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+
+    private static byte[] encode(UUID playerId, PlayerSettings settings) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            int flags = (settings.enabled() ? FLAG_ENABLED : 0)
+                    | (settings.broadcastId() != null ? FLAG_BROADCAST_ID : 0)
+                    | (settings.chatId() != null ? FLAG_CHAT_ID : 0)
+                    | (settings.kickBroadcasterId() != null ? FLAG_KICK_ID : 0);
+            out.writeLong(playerId.getMostSignificantBits());
+            out.writeLong(playerId.getLeastSignificantBits());
+            out.writeByte(flags);
+            if (settings.broadcastId() != null) out.writeUTF(settings.broadcastId());
+            if (settings.chatId() != null) out.writeUTF(settings.chatId());
+            if (settings.kickBroadcasterId() != null) out.writeUTF(settings.kickBroadcasterId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void decode(byte[] payload, BiConsumer<UUID, PlayerSettings> apply) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        UUID playerId = new UUID(in.readLong(), in.readLong());
+        int flags = in.readUnsignedByte();
+        String broadcastId = (flags & FLAG_BROADCAST_ID) != 0 ? in.readUTF() : null;
+        String chatId = (flags & FLAG_CHAT_ID) != 0 ? in.readUTF() : null;
+        String kickId = (flags & FLAG_KICK_ID) != 0 ? in.readUTF() : null;
+        apply.accept(playerId, new PlayerSettings((flags & FLAG_ENABLED) != 0, broadcastId, chatId, kickId));
+    }
+}
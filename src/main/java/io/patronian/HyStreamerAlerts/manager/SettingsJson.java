@@ -0,0 +1,181 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * The alerts.json file layout: one section per setting, keyed by player UUID.
+ *
+ * Reading and writing both stream, so a file is never held in memory as a whole; entries are
+ * merged into the target map as they are parsed.
+ */
+final class SettingsJson {
+
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+    private SettingsJson() {
+    }
+
+    /**
+     * Reads an alerts.json file into the map.
+     *
+     * @return The journal generation the file was written at, 0 if it has none
+     * @throws JsonReader.MalformedJsonException If the file is not valid JSON
+     */
+    static long read(Path file, Map<UUID, PlayerSettings> target) throws IOException {
+        try (Reader reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+            return read(reader, target);
+        }
+    }
+
+    static long read(Reader in, Map<UUID, PlayerSettings> target) throws IOException {
+        JsonReader reader = new JsonReader(in);
+        long generation = 0;
+        reader.expect('{');
+        while (reader.hasNext('}')) {
+            String name = reader.nextString();
+            reader.expect(':');
+            switch (name) {
+                case "journalGeneration":
+                    generation = reader.nextLong();
+                    break;
+                case "enabledPlayers":
+                    reader.expect('[');
+                    while (reader.hasNext(']')) {
+                        UUID playerId = parseUuid(reader.nextString());
+                        if (playerId != null) merge(target, playerId, settings -> settings.withEnabled(true));
+                    }
+                    break;
+                case "broadcastIds":
+                    readSection(reader, target, PlayerSettings::withBroadcastId);
+                    break;
+                case "chatIds":
+                    readSection(reader, target, PlayerSettings::withChatId);
+                    break;
+                case "kickIds":
+                    readSection(reader, target, PlayerSettings::withKickBroadcasterId);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        return generation;
+    }
+
+    private static void readSection(JsonReader reader, Map<UUID, PlayerSettings> target,
+                                    BiFunction<PlayerSettings, String, PlayerSettings> setter) throws IOException {
+        reader.expect('{');
+        while (reader.hasNext('}')) {
+            UUID playerId = parseUuid(reader.nextString());
+            reader.expect(':');
+            if (reader.peek() != '"') {
+                reader.skipValue();
+                continue;
+            }
+            String value = reader.nextString();
+            if (playerId != null) merge(target, playerId, settings -> setter.apply(settings, value));
+        }
+    }
+
+    private static void merge(Map<UUID, PlayerSettings> target, UUID playerId, UnaryOperator<PlayerSettings> change) {
+        PlayerSettings current = target.get(playerId);
+        PlayerSettings updated = change.apply(current != null ? current : PlayerSettings.EMPTY);
+        if (updated.isEmpty()) {
+            target.remove(playerId);
+        } else {
+            target.put(playerId, updated);
+        }
+    }
+
+    private static UUID parseUuid(String text) {
+        try {
+            return UUID.fromString(text);
+        } catch (IllegalArgumentException e) {
+            // Skip invalid UUIDs
+            return null;
+        }
+    }
+
+    /**
+     * Writes settings to a temp file, fsyncs it and atomically moves it over the target.
+     *
+     * @param generation Journal generation to record, or 0 to leave it out
+     */
+    static void writeFile(Path tempFile, Path target, Map<UUID, PlayerSettings> settings,
+                          long generation) throws IOException {
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel),
+                    StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+            write(out, settings, generation);
+            out.flush();
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes settings in the alerts.json layout, one pass over the map per section.
+     *
+     * The map may change while it is written; each entry is then written with either its old
+     * or its new value, which the settings journal reconciles on load.
+     */
+    static void write(Writer out, Map<UUID, PlayerSettings> settings, long generation) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.raw("{\n");
+        if (generation > 0) {
+            json.raw("  \"journalGeneration\": ").raw(Long.toString(generation)).raw(",\n");
+        }
+
+        json.raw("  \"enabledPlayers\": [");
+        boolean first = true;
+        for (Map.Entry<UUID, PlayerSettings> entry : settings.entrySet()) {
+            if (!entry.getValue().enabled()) continue;
+            json.raw(first ? "\n    " : ",\n    ").string(entry.getKey().toString());
+            first = false;
+        }
+        json.raw(first ? "],\n" : "\n  ],\n");
+
+        writeSection(json, "broadcastIds", settings, PlayerSettings::broadcastId);
+        json.raw(",\n");
+        writeSection(json, "chatIds", settings, PlayerSettings::chatId);
+        json.raw(",\n");
+        writeSection(json, "kickIds", settings, PlayerSettings::kickBroadcasterId);
+        json.raw("\n}");
+    }
+
+    private static void writeSection(JsonWriter json, String name, Map<UUID, PlayerSettings> settings,
+                                     Function<PlayerSettings, String> getter) throws IOException {
+        json.raw("  ").string(name).raw(": {");
+        boolean first = true;
+        for (Map.Entry<UUID, PlayerSettings> entry : settings.entrySet()) {
+            String value = getter.apply(entry.getValue());
+            if (value == null) continue;
+            json.raw(first ? "\n    " : ",\n    ").string(entry.getKey().toString()).raw(": ").string(value);
+            first = false;
+        }
+        json.raw(first ? "}" : "\n  }");
+    }
+}
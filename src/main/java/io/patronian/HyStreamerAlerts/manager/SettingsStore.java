@@ -0,0 +1,45 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Storage backend for player settings.
+ *
+ * {@link #get} may be called from any thread at any time and must not wait on writes.
+ * {@link #put} calls are serialized by the caller. {@link #flush} runs on the background
+ * writer and makes every earlier put durable.
+ */
+public interface SettingsStore {
+
+    void load() throws IOException;
+
+    /**
+     * @return The player's settings, or null if none are stored
+     */
+    PlayerSettings get(UUID playerId);
+
+    /**
+     * Stores a player's settings; empty settings remove the player.
+     */
+    void put(UUID playerId, PlayerSettings settings);
+
+    void forEach(BiConsumer<UUID, PlayerSettings> action);
+
+    /**
+     * Number of players whose settings are in memory.
+     */
+    int size();
+
+    /**
+     * True if no settings have been stored, in memory or on disk.
+     */
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+
+    void flush() throws IOException;
+
+    void close() throws IOException;
+}
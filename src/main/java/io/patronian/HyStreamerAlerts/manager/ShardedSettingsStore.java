@@ -0,0 +1,264 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Settings store that only keeps the players it has been asked about in memory.
+ *
+ * Players are split over 256 shard files (settings/00.json to settings/ff.json, by the first
+ * two hex digits of the UUID), each in the alerts.json layout. A shard is read the first time
+ * one of its players is looked up, e.g. on join or on a /sa command, so startup does not
+ * depend on how many players ever used the plugin. Changed shards are rewritten on flush with
+ * an atomic replace. Shards that are saved and were not used recently are dropped again once
+ * more than {@code maxLoadedShards} are in memory, or after {@code idleMillis} without use.
+ */
+public class ShardedSettingsStore implements SettingsStore {
+
+    private static final int SHARD_COUNT = 256;
+
+    private final Path shardFolder;
+    private final int maxLoadedShards;
+    private final long idleNanos;
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    private final AtomicInteger loadedShards = new AtomicInteger();
+    private volatile boolean filesOnDisk;
+
+    /**
+     * @param maxLoadedShards Shards kept in memory before idle ones are dropped
+     * @param idleMillis Time after which an unused shard is dropped regardless, 0 to keep it
+     */
+    public ShardedSettingsStore(Path dataFolder, int maxLoadedShards, long idleMillis) {
+        this.shardFolder = dataFolder.resolve("settings");
+        this.maxLoadedShards = Math.max(1, maxLoadedShards);
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, idleMillis));
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            String name = String.format("%02x", i);
+            shards[i] = new Shard(shardFolder.resolve(name + ".json"), shardFolder.resolve(name + ".json.tmp"));
+        }
+    }
+
+    @Override
+    public void load() throws IOException {
+        Files.createDirectories(shardFolder);
+        int count = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(shardFolder, "*.json")) {
+            for (Path ignored : files) {
+                count++;
+            }
+        }
+        filesOnDisk = count > 0;
+        System.out.println("[HyStreamerAlerts] Player settings are in " + count + " shards, loaded on first use");
+    }
+
+    @Override
+    public PlayerSettings get(UUID playerId) {
+        return settingsOf(shardOf(playerId)).get(playerId);
+    }
+
+    @Override
+    public void put(UUID playerId, PlayerSettings playerSettings) {
+        Shard shard = shardOf(playerId);
+        while (true) {
+            Map<UUID, PlayerSettings> settings = settingsOf(shard);
+            synchronized (shard) {
+                // Evicted between the two steps: load it again
+                if (shard.settings != settings) continue;
+                if (playerSettings.isEmpty()) {
+                    if (settings.remove(playerId) == null) return;
+                } else {
+                    settings.put(playerId, playerSettings);
+                }
+                shard.dirty = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Visits every stored player. This reads all shards, so it is meant for maintenance only.
+     */
+    @Override
+    public void forEach(BiConsumer<UUID, PlayerSettings> action) {
+        for (Shard shard : shards) {
+            settingsOf(shard).forEach(action);
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            Map<UUID, PlayerSettings> settings = shard.settings;
+            if (settings != null) size += settings.size();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return !filesOnDisk && size() == 0;
+    }
+
+    public int getLoadedShardCount() {
+        return loadedShards.get();
+    }
+
+    /**
+     * Rewrites every changed shard, then drops shards that have been idle too long.
+     */
+    @Override
+    public void flush() throws IOException {
+        IOException failure = null;
+        for (Shard shard : shards) {
+            try {
+                flushShard(shard);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (idleNanos > 0) {
+            evictIdle(System.nanoTime() - idleNanos);
+        }
+        evictLeastRecentlyUsed(null);
+        if (failure != null) throw failure;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    private void flushShard(Shard shard) throws IOException {
+        Map<UUID, PlayerSettings> snapshot;
+        synchronized (shard) {
+            if (!shard.dirty) return;
+            snapshot = Map.copyOf(shard.settings);
+            shard.dirty = false;
+            // Not evictable until the file is written, or a reload would read the old file
+            shard.saving = true;
+        }
+        try {
+            if (snapshot.isEmpty()) {
+                Files.deleteIfExists(shard.file);
+            } else {
+                SettingsJson.writeFile(shard.tempFile, shard.file, snapshot, 0);
+                filesOnDisk = true;
+            }
+        } catch (IOException e) {
+            synchronized (shard) {
+                shard.dirty = true;
+            }
+            throw e;
+        } finally {
+            synchronized (shard) {
+                shard.saving = false;
+            }
+        }
+    }
+
+    private Shard shardOf(UUID playerId) {
+        return shards[(int) (playerId.getMostSignificantBits() >>> 56)];
+    }
+
+    /**
+     * Returns the shard's settings, reading the shard file if it is not in memory.
+     */
+    private Map<UUID, PlayerSettings> settingsOf(Shard shard) {
+        shard.lastUsedNanos = System.nanoTime();
+        Map<UUID, PlayerSettings> settings = shard.settings;
+        if (settings != null) return settings;
+
+        synchronized (shard) {
+            settings = shard.settings;
+            if (settings == null) {
+                settings = readShard(shard);
+                shard.settings = settings;
+                loadedShards.incrementAndGet();
+            }
+        }
+        // Outside the shard's lock, since eviction locks other shards
+        if (loadedShards.get() > maxLoadedShards) {
+            evictLeastRecentlyUsed(shard);
+        }
+        return settings;
+    }
+
+    private Map<UUID, PlayerSettings> readShard(Shard shard) {
+        Map<UUID, PlayerSettings> settings = new ConcurrentHashMap<>();
+        if (!Files.exists(shard.file)) return settings;
+        try {
+            SettingsJson.read(shard.file, settings);
+        } catch (JsonReader.MalformedJsonException e) {
+            // Keep the unreadable file for inspection rather than overwriting it on the next save
+            System.out.println("[HyStreamerAlerts] Settings shard " + shard.file.getFileName()
+                    + " is unreadable, moving it aside: " + e.getMessage());
+            try {
+                Files.move(shard.file, shard.file.resolveSibling(shard.file.getFileName() + ".bad"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveFailure) {
+                throw new UncheckedIOException(moveFailure);
+            }
+            settings.clear();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read settings shard " + shard.file.getFileName(), e);
+        }
+        return settings;
+    }
+
+    /**
+     * Drops saved shards, least recently used first, until the cap is met again.
+     */
+    private void evictLeastRecentlyUsed(Shard keep) {
+        while (loadedShards.get() > maxLoadedShards) {
+            Shard oldest = null;
+            for (Shard shard : shards) {
+                if (shard == keep || shard.settings == null || shard.dirty || shard.saving) continue;
+                if (oldest == null || shard.lastUsedNanos < oldest.lastUsedNanos) oldest = shard;
+            }
+            // Everything else is unsaved; the cap is exceeded until the next flush
+            if (oldest == null || !evict(oldest)) return;
+        }
+    }
+
+    private void evictIdle(long idleBefore) {
+        for (Shard shard : shards) {
+            if (shard.settings != null && shard.lastUsedNanos - idleBefore < 0) {
+                evict(shard);
+            }
+        }
+    }
+
+    private boolean evict(Shard shard) {
+        synchronized (shard) {
+            if (shard.settings == null || shard.dirty || shard.saving) return false;
+            shard.settings = null;
+            loadedShards.decrementAndGet();
+            return true;
+        }
+    }
+
+    private static final class Shard {
+        final Path file;
+        final Path tempFile;
+        volatile Map<UUID, PlayerSettings> settings;
+        volatile boolean dirty;
+        volatile boolean saving;
+        volatile long lastUsedNanos;
+
+        Shard(Path file, Path tempFile) {
+            this.file = file;
+            this.tempFile = tempFile;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package io.patronian.HyStreamerAlerts.template;
+
+import com.hypixel.hytale.server.core.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A format compiled once into alternating literal text and placeholder slots, e.g.
+ * "&7{sender}: &f{message}" becomes [gray, slot 0, ": " white, slot 1]. Rendering appends the
+ * pieces to a caller-supplied builder, so there is no parsing or formatting per event.
+ * Templates without placeholders also keep their {@link Message}, which is reused.
+ */
+public final class MessageTemplate {
+
+    public static final int MAX_PLACEHOLDERS = 3;
+    private static final String COLOR_CODES = "0123456789abcdefklmnor";
+
+    // literals[i] is appended before slots[i]; literals has one more entry than slots
+    private final String[] literals;
+    private final int[] slots;
+    private final String constantText;
+    private final Message constantMessage;
+
+    private MessageTemplate(String[] literals, int[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+        this.constantText = slots.length == 0 ? literals[0] : null;
+        this.constantMessage = constantText != null ? Message.raw(constantText) : null;
+    }
+
+    /**
+     * Compiles a format.
+     * @param format Text with {name} placeholders and '&' color codes
+     * @param placeholders Names allowed in the format; their position is the argument index
+     * @throws IllegalArgumentException If the format uses an unknown placeholder
+     */
+    public static MessageTemplate compile(String format, String... placeholders) {
+        if (placeholders.length > MAX_PLACEHOLDERS) {
+            throw new IllegalArgumentException("At most " + MAX_PLACEHOLDERS + " placeholders are supported");
+        }
+
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        while (i < format.length()) {
+            char c = format.charAt(i);
+            if (c == '&' && i + 1 < format.length()
+                    && COLOR_CODES.indexOf(Character.toLowerCase(format.charAt(i + 1))) != -1) {
+                literal.append('\u00A7').append(Character.toLowerCase(format.charAt(i + 1)));
+                i += 2;
+                continue;
+            }
+            if (c == '{') {
+                int close = format.indexOf('}', i);
+                if (close != -1) {
+                    String name = format.substring(i + 1, close);
+                    int slot = indexOf(placeholders, name);
+                    if (slot == -1) {
+                        throw new IllegalArgumentException("Unknown placeholder {" + name + "}");
+                    }
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    slots.add(slot);
+                    i = close + 1;
+                    continue;
+                }
+            }
+            literal.append(c);
+            i++;
+        }
+        literals.add(literal.toString());
+
+        int[] slotArray = new int[slots.size()];
+        for (int s = 0; s < slotArray.length; s++) slotArray[s] = slots.get(s);
+        return new MessageTemplate(literals.toArray(new String[0]), slotArray);
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Appends the template with its placeholders filled in by position. Unused arguments
+     * may be null.
+     */
+    public void appendTo(StringBuilder out, String a, String b, String c) {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            switch (slots[i]) {
+                case 0:
+                    out.append(a);
+                    break;
+                case 1:
+                    out.append(b);
+                    break;
+                default:
+                    out.append(c);
+                    break;
+            }
+        }
+        out.append(literals[slots.length]);
+    }
+
+    /**
+     * True if the given slot appears exactly once and is the last placeholder, so the text
+     * before it can be rendered and cached on its own; see {@link #appendBeforeLast}.
+     */
+    public boolean endsWithSlot(int slot) {
+        if (slots.length == 0 || slots[slots.length - 1] != slot) return false;
+        for (int i = 0; i < slots.length - 1; i++) {
+            if (slots[i] == slot) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Appends everything before the last placeholder.
+     */
+    public void appendBeforeLast(StringBuilder out, String a, String b, String c) {
+        int last = slots.length - 1;
+        for (int i = 0; i < last; i++) {
+            out.append(literals[i]);
+            switch (slots[i]) {
+                case 0:
+                    out.append(a);
+                    break;
+                case 1:
+                    out.append(b);
+                    break;
+                default:
+                    out.append(c);
+                    break;
+            }
+        }
+        out.append(literals[last]);
+    }
+
+    /**
+     * The literal text after the last placeholder.
+     */
+    public String getSuffix() {
+        return literals[slots.length];
+    }
+
+    public boolean isConstant() {
+        return constantText != null;
+    }
+
+    /**
+     * The text of a template without placeholders, or null.
+     */
+    public String getConstantText() {
+        return constantText;
+    }
+
+    /**
+     * The shared Message of a template without placeholders, or null.
+     */
+    public Message getConstantMessage() {
+        return constantMessage;
+    }
+}
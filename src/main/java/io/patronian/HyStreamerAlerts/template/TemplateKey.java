@@ -0,0 +1,62 @@
+package io.patronian.HyStreamerAlerts.template;
+
+/**
+ * Every configurable text, with its config key (under "template."), default format and the
+ * placeholders it may use. '&' followed by a color code is turned into a Hytale color code.
+ */
+public enum TemplateKey {
+    CHAT_LINE("chat", "&b[Stream] {badges}&7{sender}: &f{message}", "sender", "message", "badges"),
+    CHAT_SKIPPED("chatSkipped", "&8[Stream] +{count} messages skipped", "count"),
+    BADGE_BROADCASTER("badge.broadcaster", "&c[Host]"),
+    BADGE_MODERATOR("badge.moderator", "&2[Mod]"),
+    BADGE_VIP("badge.vip", "&d[VIP]"),
+    BADGE_SUBSCRIBER("badge.subscriber", "&6[Sub]"),
+    ALERT_LINE("alert", "&6[Alert] &e{title} - {subtitle}", "title", "subtitle"),
+    TITLE_FOLDED("folded", "{subtitle} (+{count} more)", "subtitle", "count"),
+
+    FOLLOW_TITLE("follow.title", "New Follower!"),
+    FOLLOW_SUBTITLE("follow.subtitle", "{user} just followed!", "user"),
+    FOLLOW_BURST_TITLE("follow.burstTitle", "New Followers!"),
+    FOLLOW_BURST_SUBTITLE("follow.burstSubtitle", "{count} new followers: {users}", "count", "users"),
+
+    SUBSCRIBE_TITLE("subscribe.title", "New Subscriber!"),
+    SUBSCRIBE_SUBTITLE("subscribe.subtitle", "{user} just subscribed!", "user"),
+    SUBSCRIBE_MONTHS_SUBTITLE("subscribe.monthsSubtitle", "{user} subscribed for {months} months!", "user", "months"),
+    SUBSCRIBE_BURST_TITLE("subscribe.burstTitle", "New Subscribers!"),
+    SUBSCRIBE_BURST_SUBTITLE("subscribe.burstSubtitle", "{count} new subscribers: {users}", "count", "users"),
+
+    GIFT_TITLE("gift.title", "Gift Subs!"),
+    GIFT_SUBTITLE("gift.subtitle", "{user} gifted a sub!", "user"),
+    GIFT_MANY_SUBTITLE("gift.manySubtitle", "{user} gifted {amount} subs!", "user", "amount"),
+    GIFT_TOTAL_SUBTITLE("gift.totalSubtitle", "{user} gifted {amount} subs in total!", "user", "amount"),
+
+    DONATION_TITLE("donation.title", "Donation!"),
+    DONATION_SUBTITLE("donation.subtitle", "{user} sent a donation!", "user"),
+    DONATION_AMOUNT_SUBTITLE("donation.amountSubtitle", "{user} donated {amount}!", "user", "amount"),
+
+    RAID_TITLE("raid.title", "Incoming Raid!"),
+    RAID_SUBTITLE("raid.subtitle", "{user} is raiding!", "user"),
+    RAID_VIEWERS_SUBTITLE("raid.viewersSubtitle", "{user} is raiding with {viewers} viewers!", "user", "viewers");
+
+    private final String configKey;
+    private final String defaultFormat;
+    private final String[] placeholders;
+
+    TemplateKey(String configKey, String defaultFormat, String... placeholders) {
+        this.configKey = "template." + configKey;
+        this.defaultFormat = defaultFormat;
+        this.placeholders = placeholders;
+    }
+
+    public String getConfigKey() {
+        return configKey;
+    }
+
+    public String getDefaultFormat() {
+        return defaultFormat;
+    }
+
+    String[] getPlaceholders() {
+        return placeholders;
+    }
+}
@@ -0,0 +1,87 @@
+package io.patronian.HyStreamerAlerts.template;
+
+import com.hypixel.hytale.server.core.Message;
+import io.patronian.HyStreamerAlerts.manager.ConfigManager;
+
+/**
+ * The compiled set of alert and chat texts.
+ *
+ * Rendering reuses one builder, so a Templates instance must only be used from one thread,
+ * which for the plugin is the render thread.
+ */
+public class Templates {
+
+    private final MessageTemplate[] templates = new MessageTemplate[TemplateKey.values().length];
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    private Templates() {
+    }
+
+    /**
+     * Compiles the built-in formats.
+     */
+    public static Templates defaults() {
+        Templates result = new Templates();
+        for (TemplateKey key : TemplateKey.values()) {
+            result.templates[key.ordinal()] = MessageTemplate.compile(key.getDefaultFormat(), key.getPlaceholders());
+        }
+        return result;
+    }
+
+    /**
+     * Compiles formats from config, falling back to the built-in format for any that are
+     * missing or invalid.
+     */
+    public static Templates load(ConfigManager config) {
+        Templates result = defaults();
+        for (TemplateKey key : TemplateKey.values()) {
+            String format = config.getString(key.getConfigKey(), null);
+            if (format == null) continue;
+            try {
+                result.templates[key.ordinal()] = MessageTemplate.compile(format, key.getPlaceholders());
+            } catch (IllegalArgumentException e) {
+                System.out.println("[HyStreamerAlerts] Invalid " + key.getConfigKey() + " (" + e.getMessage()
+                        + "), using the default");
+            }
+        }
+        return result;
+    }
+
+    public MessageTemplate get(TemplateKey key) {
+        return templates[key.ordinal()];
+    }
+
+    public String text(TemplateKey key) {
+        return text(key, null, null, null);
+    }
+
+    public String text(TemplateKey key, String a) {
+        return text(key, a, null, null);
+    }
+
+    public String text(TemplateKey key, String a, String b) {
+        return text(key, a, b, null);
+    }
+
+    public String text(TemplateKey key, String a, String b, String c) {
+        MessageTemplate template = templates[key.ordinal()];
+        if (template.isConstant()) return template.getConstantText();
+        buffer.setLength(0);
+        template.appendTo(buffer, a, b, c);
+        return buffer.toString();
+    }
+
+    public Message message(TemplateKey key) {
+        return message(key, null, null);
+    }
+
+    public Message message(TemplateKey key, String a) {
+        return message(key, a, null);
+    }
+
+    public Message message(TemplateKey key, String a, String b) {
+        MessageTemplate template = templates[key.ordinal()];
+        if (template.isConstant()) return template.getConstantMessage();
+        return Message.raw(text(key, a, b, null));
+    }
+}
@@ -0,0 +1,99 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MappedSettingsStoreTest {
+
+    // Layout constants from MappedSettingsStore
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 48;
+    private static final int R_CHAT = 32;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsSettings() throws IOException {
+        List<UUID> players = fill(200);
+
+        MappedSettingsStore reopened = new MappedSettingsStore(dir, 16);
+        reopened.load();
+
+        assertEquals(200, reopened.size());
+        for (int i = 0; i < players.size(); i++) {
+            assertEquals(settings(i), reopened.get(players.get(i)));
+        }
+        reopened.close();
+    }
+
+    @Test
+    void dropsRecordsWithRefsPastTheStringRegion() throws IOException {
+        List<UUID> players = fill(5);
+        // Torn write: record 2 points past everything that was written
+        writeLong(HEADER_BYTES + 2 * RECORD_BYTES + R_CHAT, (1_000_000L << 32) | 10);
+        // Record 3's length runs past the end
+        writeLong(HEADER_BYTES + 3 * RECORD_BYTES + R_CHAT, 0xFFFFFFFFL);
+
+        MappedSettingsStore reopened = new MappedSettingsStore(dir, 16);
+        reopened.load();
+
+        assertEquals(3, reopened.size());
+        assertNull(reopened.get(players.get(2)));
+        assertNull(reopened.get(players.get(3)));
+        assertEquals(settings(4), reopened.get(players.get(4)));
+        // The dropped slots are reusable
+        UUID added = UUID.randomUUID();
+        reopened.put(added, settings(9));
+        assertEquals(settings(9), reopened.get(added));
+        reopened.close();
+    }
+
+    @Test
+    void growsPastInitialCapacity() throws IOException {
+        List<UUID> players = fill(1500);
+
+        MappedSettingsStore reopened = new MappedSettingsStore(dir, 16);
+        reopened.load();
+
+        assertEquals(1500, reopened.size());
+        assertEquals(settings(0), reopened.get(players.get(0)));
+        assertEquals(settings(1499), reopened.get(players.get(1499)));
+        reopened.close();
+    }
+
+    private List<UUID> fill(int count) throws IOException {
+        MappedSettingsStore store = new MappedSettingsStore(dir, 16);
+        store.load();
+        List<UUID> players = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID player = UUID.randomUUID();
+            store.put(player, settings(i));
+            players.add(player);
+        }
+        store.close();
+        return players;
+    }
+
+    private static PlayerSettings settings(int i) {
+        return new PlayerSettings(i % 2 == 0, "bid-" + i, i % 3 == 0 ? null : "chat \"" + i + "\"", "kick-" + i);
+    }
+
+    private void writeLong(long position, long value) throws IOException {
+        try (FileChannel channel = FileChannel.open(dir.resolve("settings.dat"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, value), position);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SettingsJournalTest {
+
+    private static final long GENERATION = 3;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replaysRecordsInOrder() throws IOException {
+        Path file = dir.resolve("alerts.journal");
+        UUID player = UUID.randomUUID();
+        SettingsJournal journal = open(file, new LinkedHashMap<>());
+        journal.append(player, new PlayerSettings(true, "first", null, null));
+        journal.append(player, new PlayerSettings(false, "second \uD83D\uDE00", "chat", "kick"));
+        journal.writePending();
+        journal.close();
+
+        Map<UUID, PlayerSettings> replayed = new LinkedHashMap<>();
+        SettingsJournal reopened = open(file, replayed);
+
+        assertEquals(2, reopened.getRecordCount());
+        assertEquals(new PlayerSettings(false, "second \uD83D\uDE00", "chat", "kick"), replayed.get(player));
+        reopened.close();
+    }
+
+    @Test
+    void cutsOffTornTail() throws IOException {
+        Path file = dir.resolve("alerts.journal");
+        UUID kept = UUID.randomUUID();
+        UUID torn = UUID.randomUUID();
+        SettingsJournal journal = open(file, new LinkedHashMap<>());
+        journal.append(kept, new PlayerSettings(true, "kept", null, null));
+        journal.writePending();
+        long validEnd = Files.size(file);
+        journal.append(torn, new PlayerSettings(true, "torn", null, null));
+        journal.writePending();
+        journal.close();
+        // A crash part-way through the second record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(file) - 3);
+        }
+
+        Map<UUID, PlayerSettings> replayed = new LinkedHashMap<>();
+        SettingsJournal reopened = open(file, replayed);
+
+        assertEquals(1, replayed.size());
+        assertTrue(replayed.containsKey(kept));
+        assertEquals(validEnd, Files.size(file));
+        // Appends continue after the cut
+        reopened.append(torn, new PlayerSettings(true, "again", null, null));
+        reopened.writePending();
+        reopened.close();
+        replayed.clear();
+        open(file, replayed).close();
+        assertEquals(new PlayerSettings(true, "again", null, null), replayed.get(torn));
+    }
+
+    @Test
+    void stopsAtBadChecksum() throws IOException {
+        Path file = dir.resolve("alerts.journal");
+        SettingsJournal journal = open(file, new LinkedHashMap<>());
+        journal.append(UUID.randomUUID(), new PlayerSettings(true, "a", null, null));
+        journal.writePending();
+        long validEnd = Files.size(file);
+        journal.append(UUID.randomUUID(), new PlayerSettings(true, "b", null, null));
+        journal.writePending();
+        journal.close();
+        // Flip a payload byte of the second record
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, validEnd + 8);
+            one.put(0, (byte) (one.get(0) ^ 0xFF)).rewind();
+            channel.write(one, validEnd + 8);
+        }
+
+        Map<UUID, PlayerSettings> replayed = new LinkedHashMap<>();
+        open(file, replayed).close();
+
+        assertEquals(1, replayed.size());
+        assertEquals(validEnd, Files.size(file));
+    }
+
+    @Test
+    void ignoresJournalOfOtherGeneration() throws IOException {
+        Path file = dir.resolve("alerts.journal");
+        SettingsJournal journal = open(file, new LinkedHashMap<>());
+        journal.append(UUID.randomUUID(), new PlayerSettings(true, "a", null, null));
+        journal.writePending();
+        journal.close();
+
+        Map<UUID, PlayerSettings> replayed = new LinkedHashMap<>();
+        SettingsJournal newer = new SettingsJournal(file);
+        assertEquals(0, newer.open(GENERATION + 1, replayed::put));
+        newer.close();
+
+        assertTrue(replayed.isEmpty());
+    }
+
+    private static SettingsJournal open(Path file, Map<UUID, PlayerSettings> target) throws IOException {
+        SettingsJournal journal = new SettingsJournal(file);
+        journal.open(GENERATION, target::put);
+        return journal;
+    }
+}
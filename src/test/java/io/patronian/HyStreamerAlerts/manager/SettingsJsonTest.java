@@ -0,0 +1,68 @@
+package io.patronian.HyStreamerAlerts.manager;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SettingsJsonTest {
+
+    @Test
+    void roundTripsIdsThatNeedEscaping() throws IOException {
+        Map<UUID, PlayerSettings> settings = new LinkedHashMap<>();
+        put(settings, "ends with }", true);
+        put(settings, "\"quoted\"", false);
+        put(settings, "back\\slash\\", true);
+        put(settings, "controls \u0000\u0001\b\f\n\r\t\u001f end", true);
+        put(settings, "separators \u2028\u2029", false);
+        put(settings, "non-BMP \uD83D\uDE00 \uD834\uDD1E", true);
+        put(settings, "{\"id\": [1, 2]}", true);
+
+        Map<UUID, PlayerSettings> read = roundTrip(settings, 7);
+
+        assertEquals(settings, read);
+    }
+
+    @Test
+    void writesNoRawControlCharacters() throws IOException {
+        Map<UUID, PlayerSettings> settings = new HashMap<>();
+        put(settings, "a\u0000b\nc\u2028d", true);
+
+        StringWriter out = new StringWriter();
+        SettingsJson.write(out, settings, 0);
+
+        String json = out.toString().replace("\n", "");
+        for (char c : json.toCharArray()) {
+            assertFalse(c < 0x20 || c == '\u2028' || c == '\u2029', "raw character " + (int) c);
+        }
+    }
+
+    @Test
+    void keepsJournalGeneration() throws IOException {
+        StringWriter out = new StringWriter();
+        SettingsJson.write(out, new HashMap<>(), 42);
+
+        assertEquals(42, SettingsJson.read(new StringReader(out.toString()), new HashMap<>()));
+    }
+
+    private static void put(Map<UUID, PlayerSettings> settings, String id, boolean enabled) {
+        settings.put(UUID.randomUUID(), new PlayerSettings(enabled, id, id + "/chat", id + "/kick"));
+    }
+
+    private static Map<UUID, PlayerSettings> roundTrip(Map<UUID, PlayerSettings> settings, long generation)
+            throws IOException {
+        StringWriter out = new StringWriter();
+        SettingsJson.write(out, settings, generation);
+        Map<UUID, PlayerSettings> read = new HashMap<>();
+        assertEquals(generation, SettingsJson.read(new StringReader(out.toString()), read));
+        return read;
+    }
+}
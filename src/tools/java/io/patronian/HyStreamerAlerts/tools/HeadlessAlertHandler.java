@@ -0,0 +1,61 @@
+package io.patronian.HyStreamerAlerts.tools;
+
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import io.patronian.HyStreamerAlerts.api.AlertHandler;
+import io.patronian.HyStreamerAlerts.api.StreamEvent;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Alert sink that only counts events, for running providers without a game server.
+ */
+public class HeadlessAlertHandler implements AlertHandler {
+
+    private final LongAdder follows = new LongAdder();
+    private final LongAdder subscriptions = new LongAdder();
+    private final LongAdder other = new LongAdder();
+
+    @Override
+    public void onFollow(PlayerRef player, String followerName, String platform) {
+        follows.increment();
+    }
+
+    @Override
+    public void onSubscribe(PlayerRef player, String subscriberName, int months, String platform) {
+        subscriptions.increment();
+    }
+
+    @Override
+    public void onGiftSub(PlayerRef player, String gifterName, int amount, String platform) {
+        other.increment();
+    }
+
+    @Override
+    public void onDonation(PlayerRef player, String donorName, String amount, String platform) {
+        other.increment();
+    }
+
+    @Override
+    public void onRaid(PlayerRef player, String raiderName, int viewers, String platform) {
+        other.increment();
+    }
+
+    @Override
+    public void onUndeliverable(UUID playerId, StreamEvent event) {
+        // There are no players here, so every event arrives this way
+        onEvent(null, event);
+    }
+
+    public long getFollows() {
+        return follows.sum();
+    }
+
+    public long getSubscriptions() {
+        return subscriptions.sum();
+    }
+
+    public long getTotal() {
+        return follows.sum() + subscriptions.sum() + other.sum();
+    }
+}
@@ -0,0 +1,136 @@
+package io.patronian.HyStreamerAlerts.tools;
+
+import io.patronian.HyStreamerAlerts.manager.JournaledSettingsStore;
+import io.patronian.HyStreamerAlerts.manager.MappedSettingsStore;
+import io.patronian.HyStreamerAlerts.manager.PlayerSettings;
+import io.patronian.HyStreamerAlerts.manager.SettingsStore;
+import io.patronian.HyStreamerAlerts.manager.ShardedSettingsStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long each settings backend takes to save and load a given number of players.
+ *
+ * For every player count it fills a fresh store in a temp folder and times a full save (for
+ * the json backend, the alerts.json snapshot rewrite). It then opens a new store on the same
+ * folder and times the load plus one pass over every player. Broadcast IDs include quotes and
+ * backslashes so the escaping paths are exercised too.
+ *
+ * Usage: SettingsStoreBenchmark [--players 10000,100000,1000000] [--backends json,mapped,sharded]
+ *        [--runs 3]
+ */
+public class SettingsStoreBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        String[] counts = options.getOrDefault("players", "10000,100000,1000000").split(",");
+        String[] backends = options.getOrDefault("backends", "json,mapped,sharded").split(",");
+        int runs = Integer.parseInt(options.getOrDefault("runs", "3"));
+
+        System.out.println("=== Settings store benchmark (best of " + runs + ") ===");
+        System.out.printf("%-8s %10s %12s %12s %12s%n", "Backend", "Players", "Save ms", "Load ms", "File MB");
+        for (String count : counts) {
+            int players = Integer.parseInt(count.trim());
+            for (String backend : backends) {
+                benchmark(backend.trim(), players, runs);
+            }
+        }
+        System.exit(0);
+    }
+
+    private static void benchmark(String backend, int count, int runs) throws IOException {
+        long bestSave = Long.MAX_VALUE;
+        long bestLoad = Long.MAX_VALUE;
+        long bytes = 0;
+        for (int run = 0; run < runs; run++) {
+            Path folder = Files.createTempDirectory("hsa-bench");
+            try {
+                SettingsStore store = open(backend, folder);
+                store.load();
+                int players = count;
+                Random random = new Random(run);
+                for (int i = 0; i < players; i++) {
+                    store.put(new UUID(random.nextLong(), random.nextLong()), new PlayerSettings(i % 3 != 0,
+                            "bid-" + i + "-\"quoted\"\\", i % 2 == 0 ? "chat-" + i : null, null));
+                }
+
+                if (store instanceof JournaledSettingsStore) {
+                    // Move the fill out of the journal so only the snapshot rewrite is timed
+                    store.flush();
+                    store.put(new UUID(0, 1), new PlayerSettings(true, null, null, null));
+                    players++;
+                }
+
+                long start = System.nanoTime();
+                store.flush();
+                store.close();
+                bestSave = Math.min(bestSave, System.nanoTime() - start);
+                bytes = folderSize(folder);
+
+                start = System.nanoTime();
+                SettingsStore reopened = open(backend, folder);
+                reopened.load();
+                AtomicLong seen = new AtomicLong();
+                reopened.forEach((playerId, settings) -> seen.incrementAndGet());
+                bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+                reopened.close();
+                if (seen.get() != players) {
+                    throw new IllegalStateException(backend + " loaded " + seen.get() + " of " + players + " players");
+                }
+            } finally {
+                deleteRecursively(folder);
+            }
+        }
+        System.out.printf("%-8s %10d %12.1f %12.1f %12.1f%n", backend, count,
+                bestSave / 1e6, bestLoad / 1e6, bytes / (1024.0 * 1024.0));
+    }
+
+    private static SettingsStore open(String backend, Path folder) {
+        switch (backend) {
+            case "json":
+                // Compact on every flush so a save is a full snapshot write
+                return new JournaledSettingsStore(folder, 1);
+            case "mapped":
+                return new MappedSettingsStore(folder, 4096);
+            case "sharded":
+                return new ShardedSettingsStore(folder, 256, 0);
+            default:
+                throw new IllegalArgumentException("Unknown backend " + backend);
+        }
+    }
+
+    private static long folderSize(Path folder) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRecursively(Path folder) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) continue;
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, "true");
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,299 @@
+package io.patronian.HyStreamerAlerts.tools;
+
+import io.patronian.HyStreamerAlerts.impl.KickAlertProvider;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator for the Kick webhook endpoint.
+ *
+ * By default it starts a local {@link KickAlertProvider} with a {@link HeadlessAlertHandler}
+ * and drives it; pass --target to measure any other server speaking the same protocol.
+ * Requests are sent open-loop at a fixed rate over keep-alive connections, and latency is
+ * measured from each request's scheduled send time, so a stalled server shows up in the
+ * percentiles instead of silently lowering the request rate.
+ *
+ * Usage: WebhookLoadGenerator [--rate 1000] [--connections 8] [--duration 30] [--warmup 5]
+ *        [--follow-ratio 0.8] [--streamers 16] [--port 18080] [--target host:port]
+ *        [--path /webhook/kick] [--keep-limits]
+ */
+public class WebhookLoadGenerator {
+
+    private static final long BROADCASTER_ID_BASE = 1_000_000L;
+
+    private final String host;
+    private final int port;
+    private final String path;
+    private final double rate;
+    private final int connections;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final double followRatio;
+    private final int streamers;
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong ioErrors = new AtomicLong();
+    private final Map<Integer, AtomicLong> statusCounts = new ConcurrentHashMap<>();
+    private final long[][] latencies;
+    private final int[] latencyCounts;
+
+    private WebhookLoadGenerator(String host, int port, String path, double rate, int connections,
+                                 long durationSeconds, long warmupSeconds, double followRatio, int streamers) {
+        this.host = host;
+        this.port = port;
+        this.path = path;
+        this.rate = rate;
+        this.connections = connections;
+        this.durationNanos = durationSeconds * 1_000_000_000L;
+        this.warmupNanos = warmupSeconds * 1_000_000_000L;
+        this.followRatio = followRatio;
+        this.streamers = streamers;
+        this.latencies = new long[connections][];
+        this.latencyCounts = new int[connections];
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "1000"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "8"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "5"));
+        double followRatio = Double.parseDouble(options.getOrDefault("follow-ratio", "0.8"));
+        int streamers = Integer.parseInt(options.getOrDefault("streamers", "16"));
+        String path = options.getOrDefault("path", "/webhook/kick");
+
+        KickAlertProvider provider = null;
+        HeadlessAlertHandler sink = null;
+        String host;
+        int port;
+        String target = options.get("target");
+        if (target == null) {
+            host = "127.0.0.1";
+            port = Integer.parseInt(options.getOrDefault("port", "18080"));
+            sink = new HeadlessAlertHandler();
+            provider = startLocalProvider(port, streamers, sink, options.containsKey("keep-limits"));
+        } else {
+            int colon = target.lastIndexOf(':');
+            host = target.substring(0, colon);
+            port = Integer.parseInt(target.substring(colon + 1));
+        }
+
+        try {
+            new WebhookLoadGenerator(host, port, path, rate, connections, duration, warmup, followRatio, streamers)
+                    .run(sink);
+        } finally {
+            if (provider != null) provider.shutdown();
+        }
+        System.exit(0);
+    }
+
+    private static KickAlertProvider startLocalProvider(int port, int streamers, HeadlessAlertHandler sink,
+                                                        boolean keepLimits) throws IOException {
+        KickAlertProvider provider = new KickAlertProvider();
+        provider.setPort(port);
+        provider.setAlertHandler(sink);
+        if (!keepLimits) {
+            provider.setSourceRateLimit(0, 0);
+            provider.setStreamerRateLimit(0, 0);
+        }
+        for (int i = 0; i < streamers; i++) {
+            provider.connect(UUID.randomUUID(), String.valueOf(BROADCASTER_ID_BASE + i), () -> null);
+        }
+        provider.startServer();
+        return provider;
+    }
+
+    private void run(HeadlessAlertHandler sink) throws InterruptedException {
+        System.out.printf("Target http://%s:%d%s - %.0f req/s over %d connections, %ds (+%ds warmup)%n",
+                host, port, path, rate, connections, durationNanos / 1_000_000_000L, warmupNanos / 1_000_000_000L);
+
+        long intervalNanos = (long) (1_000_000_000L * connections / rate);
+        long start = System.nanoTime() + 100_000_000L;
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        int perConnectionCapacity = (int) Math.min(Integer.MAX_VALUE - 8, (durationNanos / intervalNanos) + 16);
+
+        Thread[] workers = new Thread[connections];
+        for (int c = 0; c < connections; c++) {
+            final int index = c;
+            latencies[c] = new long[perConnectionCapacity];
+            // Stagger connections so the aggregate schedule is evenly spaced
+            long offset = start + intervalNanos * c / connections;
+            workers[c] = new Thread(() -> drive(index, offset, intervalNanos, measureFrom, end), "loadgen-" + c);
+            workers[c].start();
+        }
+        for (Thread worker : workers) worker.join();
+
+        report(sink);
+    }
+
+    private void drive(int index, long firstSend, long intervalNanos, long measureFrom, long end) {
+        Random random = new Random(index);
+        byte[] responseBuffer = new byte[8192];
+        Socket socket = null;
+        InputStream in = null;
+        OutputStream out = null;
+
+        for (long scheduled = firstSend; scheduled < end; scheduled += intervalNanos) {
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            try {
+                if (socket == null) {
+                    socket = new Socket();
+                    socket.setTcpNoDelay(true);
+                    socket.connect(new InetSocketAddress(host, port), 5000);
+                    in = new BufferedInputStream(socket.getInputStream());
+                    out = new BufferedOutputStream(socket.getOutputStream());
+                }
+                out.write(buildRequest(random));
+                out.flush();
+                sent.incrementAndGet();
+                int status = readResponse(in, responseBuffer);
+                long latency = System.nanoTime() - scheduled;
+
+                if (scheduled >= measureFrom) {
+                    statusCounts.computeIfAbsent(status, s -> new AtomicLong()).incrementAndGet();
+                    if (latencyCounts[index] < latencies[index].length) {
+                        latencies[index][latencyCounts[index]++] = latency;
+                    }
+                }
+            } catch (IOException e) {
+                if (scheduled >= measureFrom) ioErrors.incrementAndGet();
+                closeQuietly(socket);
+                socket = null;
+            }
+        }
+        closeQuietly(socket);
+    }
+
+    private byte[] buildRequest(Random random) {
+        boolean follow = random.nextDouble() < followRatio;
+        long broadcasterId = BROADCASTER_ID_BASE + random.nextInt(streamers);
+        String body = "{\"event_type\":\"" + (follow ? "channel.followed" : "channel.subscription.new")
+                + "\",\"username\":\"viewer" + random.nextInt(100_000)
+                + "\",\"broadcaster_user_id\":" + broadcasterId + "}";
+        byte[] bodyBytes = body.getBytes(StandardCharsets.UTF_8);
+        String head = "POST " + path + " HTTP/1.1\r\n"
+                + "Host: " + host + ":" + port + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + bodyBytes.length + "\r\n\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] request = Arrays.copyOf(headBytes, headBytes.length + bodyBytes.length);
+        System.arraycopy(bodyBytes, 0, request, headBytes.length, bodyBytes.length);
+        return request;
+    }
+
+    /**
+     * Reads one HTTP response and returns its status code. Only Content-Length bodies are
+     * supported, which is what the webhook servers send.
+     */
+    private static int readResponse(InputStream in, byte[] buffer) throws IOException {
+        String statusLine = readLine(in);
+        if (statusLine == null) throw new IOException("Connection closed");
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+
+        long contentLength = 0;
+        boolean close = false;
+        String line;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+            String lower = line.toLowerCase();
+            if (lower.startsWith("content-length:")) {
+                contentLength = Long.parseLong(line.substring(15).trim());
+            } else if (lower.startsWith("connection:") && lower.contains("close")) {
+                close = true;
+            }
+        }
+        while (contentLength > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, contentLength));
+            if (read == -1) throw new IOException("Truncated body");
+            contentLength -= read;
+        }
+        if (close) throw new IOException("Server closed connection");
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') return sb.toString().trim();
+            sb.append((char) b);
+        }
+        return sb.length() == 0 ? null : sb.toString();
+    }
+
+    private static void closeQuietly(Socket socket) {
+        if (socket == null) return;
+        try {
+            socket.close();
+        } catch (IOException ignored) {}
+    }
+
+    private void report(HeadlessAlertHandler sink) {
+        int total = 0;
+        for (int count : latencyCounts) total += count;
+        long[] all = new long[total];
+        int position = 0;
+        for (int c = 0; c < connections; c++) {
+            System.arraycopy(latencies[c], 0, all, position, latencyCounts[c]);
+            position += latencyCounts[c];
+        }
+        Arrays.sort(all);
+
+        double seconds = durationNanos / 1e9;
+        long non2xx = statusCounts.entrySet().stream()
+                .filter(e -> e.getKey() < 200 || e.getKey() >= 300)
+                .mapToLong(e -> e.getValue().get()).sum();
+
+        System.out.println("=== Webhook load test ===");
+        System.out.printf("Requests sent:      %d (measured: %d)%n", sent.get(), total);
+        System.out.printf("Throughput:         %.1f req/s (target %.1f)%n", total / seconds, rate);
+        System.out.printf("Errors:             %d I/O, %d non-2xx%n", ioErrors.get(), non2xx);
+        System.out.println("Status codes:       " + new HashMap<>(statusCounts));
+        if (total > 0) {
+            System.out.printf("Latency p50:        %.3f ms%n", percentile(all, 0.50));
+            System.out.printf("Latency p99:        %.3f ms%n", percentile(all, 0.99));
+            System.out.printf("Latency p999:       %.3f ms%n", percentile(all, 0.999));
+            System.out.printf("Latency max:        %.3f ms%n", all[all.length - 1] / 1e6);
+        }
+        if (sink != null) {
+            System.out.printf("Alerts delivered:   %d (%d follows, %d subs)%n",
+                    sink.getTotal(), sink.getFollows(), sink.getSubscriptions());
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1e6;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) continue;
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, "true");
+            }
+        }
+        return options;
+    }
+}